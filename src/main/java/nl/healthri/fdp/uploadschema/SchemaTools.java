@@ -2,13 +2,29 @@ package nl.healthri.fdp.uploadschema;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.healthri.fdp.uploadschema.config.fdp.Settings;
+import nl.healthri.fdp.uploadschema.integrations.AsyncFdpClient;
 import nl.healthri.fdp.uploadschema.integrations.FdpClient;
+import nl.healthri.fdp.uploadschema.integrations.HttpCompression;
+import nl.healthri.fdp.uploadschema.integrations.HttpTransport;
+import nl.healthri.fdp.uploadschema.integrations.cache.CoalescingFdpClient;
+import nl.healthri.fdp.uploadschema.integrations.cache.HttpResponseCache;
 import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.integrations.metrics.FdpMetrics;
+import nl.healthri.fdp.uploadschema.integrations.resilience.AimdLimiter;
+import nl.healthri.fdp.uploadschema.integrations.resilience.ConcurrencyLimitedFdpClient;
+import nl.healthri.fdp.uploadschema.integrations.resilience.ResilientFdpClient;
+import nl.healthri.fdp.uploadschema.integrations.resilience.RetryPolicy;
+import nl.healthri.fdp.uploadschema.integrations.session.SessionFdpClient;
+import nl.healthri.fdp.uploadschema.integrations.session.TokenStore;
 import nl.healthri.fdp.uploadschema.services.FdpService;
 import nl.healthri.fdp.uploadschema.services.ResourceTaskService;
+import nl.healthri.fdp.uploadschema.services.SchemaPublishScheduler;
 import nl.healthri.fdp.uploadschema.services.SchemaToolService;
 import nl.healthri.fdp.uploadschema.services.ShapeTaskService;
 import nl.healthri.fdp.uploadschema.utils.FileHandler;
+import nl.healthri.fdp.uploadschema.utils.RemoteFileCache;
+import nl.healthri.fdp.uploadschema.utils.ResourceCatalog;
+import nl.healthri.fdp.uploadschema.utils.SchemaCatalog;
 import nl.healthri.fdp.uploadschema.config.fdp.Properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,7 +34,6 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.http.HttpClient;
 import java.time.Duration;
 
 @CommandLine.Command(name = "SchemaTools utility that create FDP ready Shacls and upload them the the FDP.",
@@ -27,6 +42,9 @@ public class SchemaTools implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(SchemaTools.class);
 
+    @CommandLine.Spec
+    CommandLine.Model.CommandSpec spec;
+
     @CommandLine.Option(names = {"-s", "--settings"}, defaultValue = "./FdpSettings.json", description = "location of the FdpSettings.json file (default: ${DEFAULT-VALUE})")
     File settingsFile;
 
@@ -49,6 +67,60 @@ public class SchemaTools implements Runnable {
     @CommandLine.Option(names = {"-f", "--force"}, defaultValue = "false", description = "Force upload even if schema has not changed")
     boolean force;
 
+    @CommandLine.Option(names = {"-w", "--workers"}, defaultValue = "4", description = "Maximum number of schemas published concurrently (default: ${DEFAULT-VALUE})")
+    int workers;
+
+    @CommandLine.Option(names = {"--two-phase"}, defaultValue = "false", description = "Prepare the drafts of all schemas first and release them together once all drafts succeeded")
+    boolean twoPhase;
+
+    @CommandLine.Option(names = {"--http-cache-dir"}, description = "Directory to cache the FDP schema and resource listings, revalidated with ETag/Last-Modified (default: no cache)")
+    File httpCacheDir;
+
+    @CommandLine.Option(names = {"--http-cache-ttl"}, defaultValue = "0", description = "Seconds a cached listing is reused without asking the FDP, only when the FDP doesn't send ETag/Last-Modified (default: ${DEFAULT-VALUE})")
+    long httpCacheTtl;
+
+    @CommandLine.Option(names = {"--read-cache-ttl"}, defaultValue = "5", description = "Seconds a schema/resource listing or the settings are reused within a run, identical requests in flight are always shared (default: ${DEFAULT-VALUE})")
+    long readCacheTtl;
+
+    @CommandLine.Option(names = {"--file-cache-dir"}, description = "Directory to keep the remote shape files between runs, revalidated with ETag/Last-Modified (default: no cache)")
+    File fileCacheDir;
+
+    @CommandLine.Option(names = {"--offline"}, defaultValue = "false", description = "Read the remote shape files only from the --file-cache-dir, without contacting the remote host")
+    boolean offline;
+
+    @CommandLine.Option(names = {"--mmap-threshold"}, defaultValue = "16", description = "Local shape files of at least this many MiB are memory-mapped, smaller ones are read through a buffer (default: ${DEFAULT-VALUE})")
+    long mmapThreshold;
+
+    @CommandLine.Option(names = {"--retries"}, defaultValue = "5", description = "Times a FDP request is retried after a 5xx, timeout or connection error (default: ${DEFAULT-VALUE})")
+    int retries;
+
+    @CommandLine.Option(names = {"--retry-max-backoff"}, defaultValue = "30", description = "Maximum seconds to wait between two retries, the wait doubles for every retry (default: ${DEFAULT-VALUE})")
+    long retryMaxBackoff;
+
+    @CommandLine.Option(names = {"--token-cache-dir"}, description = "Directory to keep the FDP token between runs, per host and user, until it expires (default: login every run)")
+    File tokenCacheDir;
+
+    @CommandLine.Option(names = {"--max-concurrency"}, defaultValue = "8", description = "Maximum number of requests in flight to the FDP, lowered automatically when the FDP answers 429/503 or times out (default: ${DEFAULT-VALUE})")
+    int maxConcurrency;
+
+    @CommandLine.Option(names = {"--http-version"}, description = "Preferred HTTP version: HTTP_2 or HTTP_1_1 (default: transport.httpVersion in Properties.yaml, else HTTP_2)")
+    String httpVersion;
+
+    @CommandLine.Option(names = {"--connect-timeout"}, description = "Seconds to wait for a connection (default: transport.connectTimeout in Properties.yaml, else 10)")
+    Long connectTimeout;
+
+    @CommandLine.Option(names = {"--request-timeout"}, description = "Seconds to wait for a response (default: transport.requestTimeout in Properties.yaml, else 60)")
+    Long requestTimeout;
+
+    @CommandLine.Option(names = {"--executor"}, description = "Threads for HTTP requests, valid values: ${COMPLETION-CANDIDATES} (default: transport.executor in Properties.yaml, else VIRTUAL)", converter = ExecutorTypeConverter.class)
+    HttpTransport.ExecutorType executorType;
+
+    @CommandLine.Option(names = {"--executor-threads"}, description = "Pool size for the FIXED executor, one pool delivers the responses and one reads them (default: transport.executorThreads in Properties.yaml, else 8)")
+    Integer executorThreads;
+
+    @CommandLine.Option(names = {"--gzip-requests"}, arity = "0..1", description = "Send schema and resource bodies gzip compressed, the FDP has to accept Content-Encoding: gzip (default: transport.gzipRequests in Properties.yaml, else false)")
+    Boolean gzipRequests;
+
     public static void main(String... args) {
         var cmd = new CommandLine(new SchemaTools());
         System.exit(cmd.execute(args));
@@ -56,22 +128,34 @@ public class SchemaTools implements Runnable {
 
     @Override
     public void run() {
+        if (offline && fileCacheDir == null) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--offline needs a --file-cache-dir");
+        }
+        HttpTransport transport = null;
         try {
-            HttpClient client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(10))
-                    .build();
+            final Properties properties = Properties.load(propertyFile);
+            transport = new HttpTransport(transportConfig(properties));
 
             final ObjectMapper objectMapper = new ObjectMapper();
-            final FdpClient fdpClient = new FdpClient(client, this.hostname, objectMapper);
-            final FdpService fdpService = new FdpService(fdpClient);
-
-            final Properties properties = Properties.load(propertyFile);
+            final HttpResponseCache responseCache = httpCacheDir == null ? null
+                    : new HttpResponseCache(httpCacheDir.toPath(), this.hostname, Duration.ofSeconds(httpCacheTtl));
+            final AsyncFdpClient asyncFdpClient = new AsyncFdpClient(transport, this.hostname, objectMapper, responseCache, new FdpMetrics(this.hostname));
+            final RetryPolicy retryPolicy = new RetryPolicy(retries + 1, Duration.ofSeconds(1), Duration.ofSeconds(retryMaxBackoff));
+            final TokenStore tokenStore = tokenCacheDir == null ? null : new TokenStore(tokenCacheDir.toPath());
+            final ConcurrencyLimitedFdpClient limitedFdpClient = new ConcurrencyLimitedFdpClient(new FdpClient(asyncFdpClient), new AimdLimiter(AimdLimiter.Config.withCeiling(maxConcurrency)));
+            final SessionFdpClient sessionFdpClient = new SessionFdpClient(limitedFdpClient, this.hostname, tokenStore);
+            final ResilientFdpClient resilientFdpClient = new ResilientFdpClient(sessionFdpClient, this.hostname, retryPolicy);
+            final CoalescingFdpClient fdpClient = new CoalescingFdpClient(resilientFdpClient, Duration.ofSeconds(readCacheTtl));
+            // the definitions of the schemas to publish are kept from the listing, no GET per schema is needed.
+            final FdpService fdpService = new FdpService(fdpClient, properties.getSchemasToPublish()::contains);
 
             final ResourceTaskService resourceTaskService = new ResourceTaskService(fdpService, properties);
 
-            final FileHandler fileHandler = new FileHandler();
+            final RemoteFileCache fileCache = fileCacheDir == null ? null : new RemoteFileCache(fileCacheDir.toPath(), offline);
+            final FileHandler fileHandler = new FileHandler(transport, fileCache, mmapThreshold * 1024 * 1024);
             final ShapeTaskService shapeTaskService = new ShapeTaskService(fdpService, fileHandler, properties);
-            final SchemaToolService schemaToolService = new SchemaToolService(fdpService, resourceTaskService, shapeTaskService, properties, fileHandler);
+            final SchemaPublishScheduler publishScheduler = new SchemaPublishScheduler(workers);
+            final SchemaToolService schemaToolService = new SchemaToolService(fdpService, resourceTaskService, shapeTaskService, properties, fileHandler, publishScheduler, twoPhase);
 
             fdpService.authenticate(this.username, this.password);
 
@@ -92,13 +176,60 @@ public class SchemaTools implements Runnable {
                 case SCHEMA -> schemaToolService.createOrUpdateSchemas(force);
                 case RESOURCE -> schemaToolService.addResourceDescriptions();
             }
+
+            final SchemaCatalog.Stats catalogStats = fdpService.getSchemaCatalog().stats();
+            logger.info("Schema catalog: {} listing(s) fetched, {} lookups found, {} not found", catalogStats.loads(), catalogStats.hits(), catalogStats.misses());
+            final ResourceCatalog.Stats resourceCatalogStats = fdpService.getResourceCatalog().stats();
+            logger.info("Resource catalog: {} listing(s) fetched, {} lookups found, {} not found", resourceCatalogStats.loads(), resourceCatalogStats.hits(), resourceCatalogStats.misses());
+            final CoalescingFdpClient.Stats readStats = fdpClient.stats();
+            logger.info("FDP reads: {} sent, {} shared with a request in flight, {} reused", readStats.misses(), readStats.joined(), readStats.hits());
+            final ResilientFdpClient.Stats retryStats = resilientFdpClient.stats();
+            logger.info("FDP retries: {} retried, {} writes found applied, circuit opened {} time(s)", retryStats.retries(), retryStats.writesFoundApplied(), retryStats.circuitOpened());
+            logger.info("FDP session: token refreshed {} time(s)", sessionFdpClient.refreshes());
+            final AimdLimiter.Stats limiterStats = limitedFdpClient.limiter().stats();
+            logger.info("FDP concurrency: limit {} (lowered {} time(s)), queue time p50 {} ms, p99 {} ms, max {} ms", limiterStats.limit(), limiterStats.decreases(),
+                    limiterStats.queueP50().toMillis(), limiterStats.queueP99().toMillis(), limiterStats.queueMax().toMillis());
+            logger.info("FDP requests:\n{}", asyncFdpClient.metrics().summary());
+            final HttpCompression.Stats compressionStats = asyncFdpClient.compression().stats();
+            logger.info("Gzip: {} bytes saved ({} -> {} request bytes, {} -> {} response bytes)", compressionStats.bytesSaved(),
+                    compressionStats.requestBytes(), compressionStats.requestBytesSent(), compressionStats.responseBytesReceived(), compressionStats.responseBytes());
+            final FileHandler.Stats fileStats = fileHandler.stats();
+            logger.info("Shape files: {} remote request(s), {} parsed, {} reused within the run", fileStats.downloads(), fileStats.parsed(), fileStats.reused());
+            final FileHandler.Throughput parseStats = fileHandler.throughput();
+            logger.info("Shape files parsed: {} bytes ({} MB/s), {} statements ({} statements/s), {} file(s) memory-mapped", parseStats.bytes(),
+                    Math.round(parseStats.bytesPerSecond() / 1_000_000), parseStats.statements(), Math.round(parseStats.statementsPerSecond()), parseStats.mapped());
+            if (fileCache != null) {
+                final RemoteFileCache.Stats fileCacheStats = fileCache.stats();
+                logger.info("File cache: {} not modified, {} stored, {} offline, {} stale", fileCacheStats.revalidated(), fileCacheStats.stored(),
+                        fileCacheStats.offline(), fileCacheStats.stale());
+            }
+            if (responseCache != null) {
+                final HttpResponseCache.Stats cacheStats = responseCache.stats();
+                logger.info("HTTP cache: {} not modified, {} within TTL, {} stored", cacheStats.revalidated(), cacheStats.fresh(), cacheStats.stored());
+            }
         } catch (IOException e) {
             logger.error("Unexpected error: {}", e.getMessage());
         } catch (FdpClientException e){
             logger.error("FDP Connection Error: {}", e.getMessage());
+        } finally {
+            if (transport != null) {
+                transport.close();
+            }
         }
     }
 
+    // Command line options override the transport section of the Properties.yaml.
+    private HttpTransport.Config transportConfig(Properties properties) {
+        HttpTransport.Config config = HttpTransport.Config.defaults().with(properties.transport);
+        return new HttpTransport.Config(
+                httpVersion == null ? config.httpVersion() : HttpTransport.Config.parseVersion(httpVersion),
+                connectTimeout == null ? config.connectTimeout() : Duration.ofSeconds(connectTimeout),
+                requestTimeout == null ? config.requestTimeout() : Duration.ofSeconds(requestTimeout),
+                executorType == null ? config.executorType() : executorType,
+                executorThreads == null ? config.executorThreads() : executorThreads,
+                gzipRequests == null ? config.gzipRequests() : gzipRequests);
+    }
+
     private File resolveSettingsFile(File configuredFile) {
         if (configuredFile != null && configuredFile.exists() && configuredFile.isFile()) {
             return configuredFile;
@@ -125,6 +256,13 @@ public class SchemaTools implements Runnable {
         }
     }
 
+    public static class ExecutorTypeConverter implements CommandLine.ITypeConverter<HttpTransport.ExecutorType> {
+        @Override
+        public HttpTransport.ExecutorType convert(String value) {
+            return HttpTransport.ExecutorType.valueOf(value.toUpperCase());
+        }
+    }
+
     public static class UriConverter implements CommandLine.ITypeConverter<URI> {
         @Override
         public URI convert(String value) {
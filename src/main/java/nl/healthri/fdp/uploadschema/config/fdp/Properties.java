@@ -30,11 +30,43 @@ public class Properties {
     public String piecesDir;
     public String fairDataPointDir;
     public String validationDir;
+    public TransportProperties transport;
 
+    /**
+     * @param listViewTitle   title of the list of this resource shown on the parent, optional (default: plural of the name).
+     *                        Only used when the link to the parent is created.
+     * @param listViewTagsUri property used for the tags in that list, optional (default: dcat:themeTaxonomy).
+     *                        Only used when the link to the parent is created.
+     */
     public record ResourceProperties(
             String parentResource,
             String parentRelationIri,
-            String schema) {
+            String schema,
+            String listViewTitle,
+            String listViewTagsUri) {
+
+        public ResourceProperties(String parentResource, String parentRelationIri, String schema) {
+            this(parentResource, parentRelationIri, schema, null, null);
+        }
+    }
+
+    /**
+     * Optional transport section, every value can be left out (and overridden on the command line).
+     *
+     * @param httpVersion     HTTP_2 or HTTP_1_1.
+     * @param connectTimeout  seconds.
+     * @param requestTimeout  seconds.
+     * @param executor        VIRTUAL or FIXED.
+     * @param executorThreads pool size for the FIXED executor.
+     * @param gzipRequests    compress request bodies with gzip, the FDP has to accept Content-Encoding: gzip.
+     */
+    public record TransportProperties(
+            String httpVersion,
+            Long connectTimeout,
+            Long requestTimeout,
+            String executor,
+            Integer executorThreads,
+            Boolean gzipRequests) {
     }
 
     public static Properties load(File file) throws IOException {
@@ -86,7 +118,7 @@ public class Properties {
         //this defines the "extends" in the schema definition.
         p.addParent("Resource", "Dataset", "Catalog", "Data Service");
 
-        //this is list schema to publish, Make sure Parents are places first in the list(!)
+        //this is list schema to publish, parents (see parentChild) are always published before their children.
         p.schemasToPublish = List.of("Resource", "Catalog", "Dataset", "Dataset Series", "Distribution", "Data Service");
         p.schemaVersion = "2.0.0";
 
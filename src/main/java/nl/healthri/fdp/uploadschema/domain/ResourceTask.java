@@ -7,13 +7,17 @@ import java.util.regex.Pattern;
 
 public class ResourceTask {
     public final String resource;
-    public String UUID;
+    public volatile String UUID; // Set by the publishing thread when the resource is inserted
     public final String shapeUUUID;
     public String childUUuid;
     public String childRelationIri;
     public String childName;
+    public String childListViewTitle;
+    public String childListViewTagsUri;
     public final boolean exists;
 
+    public static final String DEFAULT_LIST_VIEW_TAGS_URI = "http://www.w3.org/ns/dcat#themeTaxonomy";
+
     private static final Logger logger = LoggerFactory.getLogger(ResourceTask.class);
 
     public ResourceTask(String resource, String uuid, String shapeUUUID, boolean exists) {
@@ -72,6 +76,14 @@ public class ResourceTask {
         }
     }
 
+    public String listViewTitle() {
+        return this.childListViewTitle != null ? this.childListViewTitle : pluralName();
+    }
+
+    public String listViewTagsUri() {
+        return this.childListViewTagsUri != null ? this.childListViewTagsUri : DEFAULT_LIST_VIEW_TAGS_URI;
+    }
+
     public String url() {
         return this.resource.toLowerCase().replaceAll(" ", "");
     }
@@ -1,20 +1,18 @@
 package nl.healthri.fdp.uploadschema.domain;
 
 import nl.healthri.fdp.uploadschema.domain.enums.ShapeStatus;
-import nl.healthri.fdp.uploadschema.utils.SchemaInfo;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class ShapeTask {
     public final String shape;
     public Version version;
-    public String uuid;
+    public volatile String uuid; // Set by the publishing thread when the schema is inserted
     public Set<String> parents; // Names of parents for this schema
     public String model;
     public ShapeStatus status;
@@ -30,14 +28,13 @@ public class ShapeTask {
         this.status = status;
     }
 
-    public Set<String> getParentUID(Map<String, SchemaInfo> schemaMap) {
+    public Set<String> getParentUID(Function<String, String> uuidOfSchema) {
         if (this.parents.isEmpty()) {
             return Collections.emptySet();
         }
 
         return this.parents.stream()
-                .map(schemaMap::get) // SchemaInfo
-                .map(SchemaInfo::uuid) // SchemaInfo.UUID
+                .map(uuidOfSchema) // SchemaInfo.UUID
                 .collect(Collectors.toSet());
     }
 
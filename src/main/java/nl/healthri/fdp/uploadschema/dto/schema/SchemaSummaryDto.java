@@ -0,0 +1,15 @@
+package nl.healthri.fdp.uploadschema.dto.schema;
+
+import nl.healthri.fdp.uploadschema.utils.CompressedText;
+
+/**
+ * Part of a schema from the /metadata-schemas listing we need for planning.
+ *
+ * @param definition definition of the latest version, null when it was skipped while reading the listing.
+ */
+public record SchemaSummaryDto(
+        String uuid,
+        String name,
+        String version,
+        CompressedText definition) {
+}
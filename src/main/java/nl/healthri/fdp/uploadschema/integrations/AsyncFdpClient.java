@@ -0,0 +1,418 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.ReleaseSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.cache.HttpResponseCache;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.integrations.metrics.FdpMetrics;
+import nl.healthri.fdp.uploadschema.utils.HttpRequestUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.entity.ContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+
+/**
+ * FDP client built on {@link HttpClient#sendAsync}. Requests are sent without blocking the caller, the response
+ * status check and JSON mapping run on the configured executor (virtual threads by default), so callers can
+ * have several FDP round-trips in flight at the same time.
+ * <p>
+ * The client is safe to share between threads: the token is held in an immutable {@link FdpSession} that is
+ * replaced as a whole on login, every request reads it once. One instance talks to one FDP, for more hosts create
+ * a client per host on the same {@link HttpTransport}.
+ */
+public class AsyncFdpClient implements AsyncFdpClientInterface {
+    private final HttpClient client;
+    private final URI hostname;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final HttpResponseCache responseCache;
+    private final FdpMetrics metrics;
+    private final Duration requestTimeout;
+    private final HttpCompression compression;
+    private final SchemaListingParser schemaListingParser;
+    private volatile FdpSession session;
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncFdpClient.class);
+
+    public AsyncFdpClient(HttpClient client, URI hostname, ObjectMapper objectMapper, Executor executor) {
+        this(client, hostname, objectMapper, executor, null);
+    }
+
+    /**
+     * @param responseCache cache for the schema and resource listings, or null to always fetch them.
+     */
+    public AsyncFdpClient(HttpClient client, URI hostname, ObjectMapper objectMapper, Executor executor, HttpResponseCache responseCache) {
+        this(client, hostname, objectMapper, executor, responseCache, new FdpMetrics(hostname));
+    }
+
+    /**
+     * @param metrics records latency, status and size of every request sent to the FDP.
+     */
+    public AsyncFdpClient(HttpClient client, URI hostname, ObjectMapper objectMapper, Executor executor, HttpResponseCache responseCache, FdpMetrics metrics) {
+        this(client, hostname, objectMapper, executor, responseCache, metrics, null, new HttpCompression(false));
+    }
+
+    /**
+     * Uses the shared client, executor and request timeout of the transport.
+     */
+    public AsyncFdpClient(HttpTransport transport, URI hostname, ObjectMapper objectMapper, HttpResponseCache responseCache, FdpMetrics metrics) {
+        this(transport.client(), hostname, objectMapper, transport.executor(), responseCache, metrics,
+                transport.config().requestTimeout(), new HttpCompression(transport.config().gzipRequests()));
+    }
+
+    private AsyncFdpClient(HttpClient client, URI hostname, ObjectMapper objectMapper, Executor executor, HttpResponseCache responseCache, FdpMetrics metrics, Duration requestTimeout, HttpCompression compression) {
+        this.client = Objects.requireNonNull(client, "HttpClient must not be null");
+        this.hostname = Objects.requireNonNull(hostname, "URL must not be null");
+        this.session = FdpSession.anonymous(hostname);
+        this.objectMapper = Objects.requireNonNull(objectMapper, "ObjectMapper must not be null");
+        this.executor = Objects.requireNonNull(executor, "Executor must not be null");
+        this.responseCache = responseCache;
+        this.metrics = Objects.requireNonNull(metrics, "FdpMetrics must not be null");
+        this.requestTimeout = requestTimeout;
+        this.compression = compression;
+        this.schemaListingParser = new SchemaListingParser(objectMapper.getFactory());
+    }
+
+    public FdpMetrics metrics() {
+        return this.metrics;
+    }
+
+    public HttpCompression compression() {
+        return this.compression;
+    }
+
+    public FdpSession session() {
+        return this.session;
+    }
+
+    public void setAuthToken(LoginResponseDto loginResponse) {
+        this.session = this.session.withToken(loginResponse);
+    }
+
+    public CompletableFuture<LoginResponseDto> getAuthToken(LoginRequestDto loginRequest) {
+        logger.info("Connecting to FDP at {} as {} ", hostname, loginRequest.email());
+        String failure = "Failed to reach FDP during authentication";
+
+        return sendSafely(() -> {
+            HttpRequest request = withJsonBody(newRequest("/tokens", failure), "POST", loginRequest, failure)
+                    .build();
+
+            return send(request, failure, body -> this.objectMapper.readValue(body, LoginResponseDto.class));
+        });
+    }
+
+    public CompletableFuture<List<SchemaDataResponseDto>> fetchSchemas() {
+        logger.info("Fetching metadata schemas from FDP");
+        String failure = "Failed to reach FDP while fetching schemas";
+
+        return sendSafely(() -> {
+            HttpRequest.Builder request = newAuthenticatedRequest("/metadata-schemas", failure)
+                    .GET();
+
+            return sendCached(request, failure, body -> List.of(objectMapper.readValue(body, SchemaDataResponseDto[].class)));
+        });
+    }
+
+    public CompletableFuture<List<SchemaSummaryDto>> fetchSchemaSummaries(Predicate<String> retainDefinition) {
+        logger.info("Fetching metadata schema summaries from FDP");
+        String failure = "Failed to reach FDP while fetching schemas";
+
+        return sendSafely(() -> {
+            HttpRequest.Builder request = newAuthenticatedRequest("/metadata-schemas", failure)
+                    .GET();
+
+            return sendCached(request, failure, body -> schemaListingParser.parse(body, retainDefinition));
+        });
+    }
+
+    public CompletableFuture<SchemaDataResponseDto> fetchSchema(String schemaUuid) {
+        logger.info("Fetching metadata schema {} from FDP", schemaUuid);
+        String failure = "Failed to reach FDP while fetching schema " + schemaUuid;
+
+        return sendSafely(() -> {
+            HttpRequest.Builder request = newAuthenticatedRequest("/metadata-schemas/" + schemaUuid, failure)
+                    .GET();
+
+            return sendCached(request, failure, body -> objectMapper.readValue(body, SchemaDataResponseDto.class));
+        });
+    }
+
+    public CompletableFuture<ResourceResponseDto> insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        logger.info("Inserting {} schema into FDP", task.shape);
+        String failure = "Failed to reach FDP while inserting schema for " + task.shape;
+
+        return sendSafely(() -> {
+            HttpRequest request = withJsonBody(newAuthenticatedRequest("/metadata-schemas", failure), "POST", updateSchemaRequest, failure)
+                    .build();
+
+            return send(request, failure, body -> objectMapper.readValue(body, ResourceResponseDto.class))
+                    .whenComplete((result, error) -> invalidateCached("/metadata-schemas"));
+        });
+    }
+
+    public CompletableFuture<Void> updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        logger.info("Updating shape {} in FDP", task.shape);
+        String failure = "Failed to reach FDP while updating schema for " + task.shape;
+
+        return sendSafely(() -> {
+            HttpRequest request = withJsonBody(newAuthenticatedRequest("/metadata-schemas/" + task.uuid + "/draft", failure), "PUT", updateSchemaRequest, failure)
+                    .build();
+
+            return this.<Void>send(request, failure, body -> null)
+                    .whenComplete((result, error) -> invalidateCached("/metadata-schemas", "/metadata-schemas/" + task.uuid));
+        });
+    }
+
+    public CompletableFuture<Void> releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest) {
+        logger.info("Releasing {} into FDP", task.shape);
+        String failure = "Failed to reach FDP while releasing schema " + task.shape;
+
+        return sendSafely(() -> {
+            HttpRequest request = withJsonBody(newAuthenticatedRequest("/metadata-schemas/" + task.uuid + "/versions", failure), "POST", releaseSchemaRequest, failure)
+                    .build();
+
+            return this.<Void>send(request, failure, body -> null)
+                    .whenComplete((result, error) -> invalidateCached("/metadata-schemas", "/metadata-schemas/" + task.uuid));
+        });
+    }
+
+    public CompletableFuture<List<ResourceResponseDto>> fetchResources() {
+        logger.info("Fetching resources from fdp");
+        String failure = "Failed to reach FDP while fetching resources";
+
+        return sendSafely(() -> {
+            HttpRequest.Builder request = newAuthenticatedRequest("/resource-definitions", failure)
+                    .GET();
+
+            return sendCached(request, failure, body -> List.of(objectMapper.readValue(body, ResourceResponseDto[].class)));
+        });
+    }
+
+    public CompletableFuture<ResourceResponseDto> fetchResource(String resourceId) {
+        logger.info("fetching resource {} from FDP", resourceId);
+        String failure = "Failed to reach FDP while fetching resource " + resourceId;
+
+        return sendSafely(() -> {
+            HttpRequest request = newAuthenticatedRequest("/resource-definitions/" + resourceId, failure)
+                    .GET()
+                    .build();
+
+            return send(request, failure, body -> objectMapper.readValue(body, ResourceResponseDto.class));
+        });
+    }
+
+    public CompletableFuture<ResourceResponseDto> insertResource(ResourceTask task, ResourceRequestDto resourceRequest) {
+        logger.info("Inserting {} resources into FDP", task.resource);
+        String failure = "Failed to reach FDP while inserting resource " + task.resource;
+
+        return sendSafely(() -> {
+            HttpRequest request = withJsonBody(newAuthenticatedRequest("/resource-definitions", failure), "POST", resourceRequest, failure)
+                    .build();
+
+            return send(request, failure, body -> objectMapper.readValue(body, ResourceResponseDto.class))
+                    .whenComplete((result, error) -> invalidateCached("/resource-definitions"));
+        });
+    }
+
+    public CompletableFuture<Void> updateResource(ResourceTask task, ResourceResponseDto resourceResponse) {
+        logger.info("updating resource {} in FDP", task.resource);
+        String failure = "Failed to reach FDP while updating resource " + task.resource;
+
+        return sendSafely(() -> {
+            HttpRequest request = withJsonBody(newAuthenticatedRequest("/resource-definitions/" + task.UUID, failure), "PUT", resourceResponse, failure)
+                    .build();
+
+            return this.<Void>send(request, failure, body -> null)
+                    .whenComplete((result, error) -> invalidateCached("/resource-definitions"));
+        });
+    }
+
+    public CompletableFuture<SettingsResponseDto> getSettings() {
+        logger.info("getting settings from FDP");
+        String failure = "Failed to get FDP settings";
+
+        return sendSafely(() -> {
+            HttpRequest request = newAuthenticatedRequest("/settings", failure)
+                    .GET()
+                    .build();
+
+            return send(request, failure, body -> objectMapper.readValue(body, SettingsResponseDto.class));
+        });
+    }
+
+    public CompletableFuture<Void> updateSettings(SettingsRequestDto settingsRequestDto) {
+        logger.info("updating settings in FDP");
+        String failure = "Failed to update settings";
+
+        return sendSafely(() -> {
+            HttpRequest request = withJsonBody(newAuthenticatedRequest("/settings", failure), "PUT", settingsRequestDto, failure)
+                    .build();
+
+            return send(request, failure, body -> null);
+        });
+    }
+
+    // Failures while building the request (not logged in, invalid uri, serializing the body) are reported through
+    // the returned future like the failures of the request itself.
+    private static <T> CompletableFuture<T> sendSafely(Supplier<CompletableFuture<T>> request) {
+        try {
+            return request.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private HttpRequest.Builder newAuthenticatedRequest(String path, String failure) {
+        FdpSession current = this.session;
+        if (!current.isAuthenticated()) {
+            throw new IllegalStateException("FdpClient is not authenticated, authorization token is null or empty.");
+        }
+
+        return newRequest(current, path, failure)
+                .header(HttpHeaders.AUTHORIZATION, current.authorization());
+    }
+
+    private HttpRequest.Builder newRequest(String path, String failure) {
+        return newRequest(this.session, path, failure);
+    }
+
+    private HttpRequest.Builder newRequest(FdpSession current, String path, String failure) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(current.resolve(path))
+                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
+                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
+            if (this.requestTimeout != null) {
+                builder.timeout(this.requestTimeout);
+            }
+            this.compression.acceptGzip(builder);
+            return builder;
+        } catch (IllegalArgumentException e) {
+            throw new FdpClientException(failure, e);
+        }
+    }
+
+    // Jackson writes the JSON straight into the request body, the (large) schema definition is not copied into a String first.
+    private HttpRequest.Builder withJsonBody(HttpRequest.Builder builder, String method, Object value, String failure) {
+        try {
+            return builder.method(method, this.compression.encode(builder, out -> this.objectMapper.writeValue(out, value)));
+        } catch (IOException e) {
+            throw new FdpClientException(failure, e);
+        }
+    }
+
+    // Like send, but serves the response from the HTTP cache when it is fresh or not modified on the FDP.
+    private <T> CompletableFuture<T> sendCached(HttpRequest.Builder builder, String failure, BodyMapper<T> mapper) {
+        if (this.responseCache == null) {
+            return send(builder.build(), failure, mapper);
+        }
+
+        URI uri = builder.build().uri();
+        Optional<HttpResponseCache.Entry> entry = this.responseCache.lookup(uri);
+        if (entry.isPresent() && this.responseCache.isFresh(entry.get())) {
+            logger.info("Using cached response for {}, within cache TTL", uri);
+            return CompletableFuture.supplyAsync(() -> mapCached(entry.get(), failure, mapper), this.executor);
+        }
+        entry.ifPresent(e -> this.responseCache.addValidators(builder, e));
+
+        HttpRequest request = builder.build();
+        FdpMetrics.Call call = this.metrics.start(request);
+        return this.client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .handleAsync((response, error) -> {
+                    if (error != null) {
+                        call.failed();
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        throw new FdpClientException(failure, cause);
+                    }
+                    try (InputStream body = this.compression.decode(response, call.count(response.body()))) {
+                        if (response.statusCode() == HTTP_NOT_MODIFIED && entry.isPresent()) {
+                            this.responseCache.revalidated(entry.get());
+                            return mapCached(entry.get(), failure, mapper);
+                        }
+                        HttpRequestUtils.handleResponseStatus(response);
+
+                        // The body is written to the cache first and then parsed from there, it is never buffered in memory.
+                        HttpResponseCache.Entry stored = this.responseCache.store(uri, response.headers(), body);
+                        return mapCached(stored, failure, mapper);
+                    } catch (IOException e) {
+                        throw new FdpClientException(failure, e);
+                    } finally {
+                        call.finish(response.statusCode());
+                    }
+                }, this.executor);
+    }
+
+    private <T> T mapCached(HttpResponseCache.Entry entry, String failure, BodyMapper<T> mapper) {
+        try (InputStream body = this.responseCache.read(entry)) {
+            return mapper.map(body);
+        } catch (IOException e) {
+            throw new FdpClientException(failure, e);
+        }
+    }
+
+    private void invalidateCached(String... paths) {
+        if (this.responseCache != null) {
+            for (String path : paths) {
+                this.responseCache.invalidate(URI.create(this.hostname + path));
+            }
+        }
+    }
+
+    // Sends the request and, on the executor, checks the status and maps the body while it is streamed in.
+    private <T> CompletableFuture<T> send(HttpRequest request, String failure, BodyMapper<T> mapper) {
+        FdpMetrics.Call call = this.metrics.start(request);
+        return this.client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .handleAsync((response, error) -> {
+                    if (error != null) {
+                        call.failed();
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        throw new FdpClientException(failure, cause);
+                    }
+                    try (InputStream body = this.compression.decode(response, call.count(response.body()))) {
+                        // Handle each response based on Fair Data Point (FDP) Swagger documentation.
+                        HttpRequestUtils.handleResponseStatus(response);
+
+                        // Maps response body to object
+                        return mapper.map(body);
+                    } catch (IOException e) {
+                        throw new FdpClientException(failure, e);
+                    } finally {
+                        call.finish(response.statusCode());
+                    }
+                }, this.executor);
+    }
+
+    @FunctionalInterface
+    private interface BodyMapper<T> {
+        T map(InputStream body) throws IOException;
+    }
+}
@@ -0,0 +1,43 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.ReleaseSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Non-blocking counterpart of {@link FdpClientInterface}. Every call returns immediately, failures are reported
+ * through the returned future (as {@link nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException}
+ * or the exception raised by {@link nl.healthri.fdp.uploadschema.utils.HttpRequestUtils}).
+ */
+public interface AsyncFdpClientInterface {
+    void setAuthToken(LoginResponseDto loginResponse);
+    CompletableFuture<LoginResponseDto> getAuthToken(LoginRequestDto loginRequest);
+
+    CompletableFuture<List<SchemaDataResponseDto>> fetchSchemas();
+    CompletableFuture<List<SchemaSummaryDto>> fetchSchemaSummaries(Predicate<String> retainDefinition);
+    CompletableFuture<SchemaDataResponseDto> fetchSchema(String schemaUuid);
+    CompletableFuture<ResourceResponseDto> insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest);
+    CompletableFuture<Void> updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest);
+    CompletableFuture<Void> releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest);
+
+    CompletableFuture<List<ResourceResponseDto>> fetchResources();
+    CompletableFuture<ResourceResponseDto> fetchResource(String resourceId);
+    CompletableFuture<ResourceResponseDto> insertResource(ResourceTask task, ResourceRequestDto resourceRequest);
+    CompletableFuture<Void> updateResource(ResourceTask task, ResourceResponseDto resourceResponse);
+
+    CompletableFuture<SettingsResponseDto> getSettings();
+    CompletableFuture<Void> updateSettings(SettingsRequestDto settingsRequestDto);
+}
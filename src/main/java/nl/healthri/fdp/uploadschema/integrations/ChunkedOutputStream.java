@@ -0,0 +1,68 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects a request body in fixed-size chunks and publishes the chunks as they are. Unlike a
+ * {@link java.io.ByteArrayOutputStream} the buffer is never grown (copied) while writing and no contiguous copy is
+ * made at the end, so a large body is held in memory once.
+ */
+public class ChunkedOutputStream extends OutputStream {
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private byte[] current;
+    private int position = CHUNK_SIZE;
+    private long size;
+
+    @Override
+    public void write(int b) {
+        if (position == CHUNK_SIZE) {
+            nextChunk();
+        }
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        while (length > 0) {
+            if (position == CHUNK_SIZE) {
+                nextChunk();
+            }
+            int n = Math.min(length, CHUNK_SIZE - position);
+            System.arraycopy(buffer, offset, current, position, n);
+            position += n;
+            offset += n;
+            length -= n;
+            size += n;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return a publisher with a known content length, it can be subscribed more than once (redirects, retries).
+     */
+    public HttpRequest.BodyPublisher publisher() {
+        if (size == 0) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        List<byte[]> body = new ArrayList<>(chunks);
+        // Only the last (partially filled) chunk is trimmed, it is at most one chunk.
+        body.set(body.size() - 1, Arrays.copyOf(current, position));
+        return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofByteArrays(body), size);
+    }
+
+    private void nextChunk() {
+        current = new byte[CHUNK_SIZE];
+        chunks.add(current);
+        position = 0;
+    }
+}
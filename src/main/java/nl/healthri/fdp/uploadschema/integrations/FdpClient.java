@@ -1,6 +1,5 @@
 package nl.healthri.fdp.uploadschema.integrations;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.healthri.fdp.uploadschema.domain.ResourceTask;
 import nl.healthri.fdp.uploadschema.domain.ShapeTask;
 import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
@@ -9,115 +8,61 @@ import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
 import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
 import nl.healthri.fdp.uploadschema.dto.schema.ReleaseSchemaRequestDto;
 import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
 import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
 import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
 import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
 import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
-import nl.healthri.fdp.uploadschema.utils.HttpRequestUtils;
-import org.apache.http.HttpHeaders;
-import org.apache.http.entity.ContentType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.List;
 import java.util.Objects;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * Blocking FDP client. All requests are executed by an {@link AsyncFdpClient}, this class waits for the result
+ * and rethrows the failure the same way the previous blocking implementation did.
+ */
 public class FdpClient implements FdpClientInterface {
-    private final HttpClient client;
-    private final URI hostname;
-    private final ObjectMapper objectMapper;
-    private String authToken;
-
-    private static final Logger logger = LoggerFactory.getLogger(FdpClient.class);
+    private final AsyncFdpClientInterface asyncClient;
 
-    public FdpClient(HttpClient client, URI hostname, ObjectMapper objectMapper) {
-        this.client = Objects.requireNonNull(client, "HttpClient must not be null");
-        this.hostname = Objects.requireNonNull(hostname, "URL must not be null");
-        this.objectMapper = Objects.requireNonNull(objectMapper, "ObjectMapper must not be null");
+    public FdpClient(AsyncFdpClientInterface asyncClient) {
+        this.asyncClient = Objects.requireNonNull(asyncClient, "AsyncFdpClient must not be null");
     }
 
-    public void setAuthToken(LoginResponseDto loginResponse) {
-        this.authToken = loginResponse.asHeaderString();
+    /**
+     * @return the non-blocking client used by this client, so callers can pipeline requests when needed.
+     */
+    public AsyncFdpClientInterface async() {
+        return this.asyncClient;
     }
 
-    private void isAuthenticated() {
-        if (this.authToken == null || this.authToken.isBlank()) {
-            throw new IllegalStateException("FdpClient is not authenticated, authorization token is null or empty.");
-        }
+    public void setAuthToken(LoginResponseDto loginResponse) {
+        this.asyncClient.setAuthToken(loginResponse);
     }
 
     public LoginResponseDto getAuthToken(LoginRequestDto loginRequest) {
-        logger.info("Connecting to FDP at {} as {} ", hostname, loginRequest.email());
-
-        try {
-            URI uri = new URI(this.hostname + "/tokens");
-
-            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(
-                    this.objectMapper.writeValueAsString(loginRequest)
-            );
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .POST(body)
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .build();
-
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-
-            // Maps response body to object
-            return this.objectMapper.readValue(response.body(), LoginResponseDto.class);
-
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP during authentication", e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Authentication process was interrupted", e);
-        }
+        return await(asyncClient.getAuthToken(loginRequest), "Authentication process was interrupted");
     }
 
     public List<SchemaDataResponseDto> fetchSchemas() {
-        logger.info("Fetching metadata schemas from FDP");
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/metadata-schemas");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .GET()
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request created through the client
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
+        return await(asyncClient.fetchSchemas(), "Request to fetch schemas was interrupted");
+    }
 
-            // Maps response body to object
-            return List.of(objectMapper.readValue(response.body(), SchemaDataResponseDto[].class));
+    /**
+     * Reads the schema listing as a stream, only the definitions of the schemas accepted by
+     * {@code retainDefinition} are kept (compressed).
+     */
+    public List<SchemaSummaryDto> fetchSchemaSummaries(Predicate<String> retainDefinition) {
+        return await(asyncClient.fetchSchemaSummaries(retainDefinition), "Request to fetch schemas was interrupted");
+    }
 
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while fetching schemas", e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Request to fetch schemas was interrupted", e);
-        }
+    /**
+     * Fetches one schema, with the definition of its latest version and the list of released versions.
+     */
+    public SchemaDataResponseDto fetchSchema(String schemaUuid) {
+        return await(asyncClient.fetchSchema(schemaUuid), "Request to fetch schema was interrupted");
     }
 
     /**
@@ -125,309 +70,54 @@ public class FdpClient implements FdpClientInterface {
      *          when the shapes are created it will update this parameter by setting the UUID!
      */
     public ResourceResponseDto insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
-        logger.info("Inserting {} schema into FDP", task.shape);
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/metadata-schemas");
-
-            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(
-                    this.objectMapper.writeValueAsString(updateSchemaRequest)
-            );
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .POST(body)
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-
-            // Maps response body to object
-            return objectMapper.readValue(response.body(), ResourceResponseDto.class);
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while inserting schema for " + task.shape, e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Schema insertion was interrupted", e);
-        }
+        return await(asyncClient.insertSchema(task, updateSchemaRequest), "Schema insertion was interrupted");
     }
 
-
-
-
     public void updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
-        logger.info("Updating shape {} in FDP", task.shape);
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/metadata-schemas/" + task.uuid + "/draft");
-
-            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(
-                    this.objectMapper.writeValueAsString(updateSchemaRequest)
-            );
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .PUT(body)
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while updating schema for " + task.shape, e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Schema update was interrupted", e);
-        }
+        await(asyncClient.updateSchema(task, updateSchemaRequest), "Schema update was interrupted");
     }
 
     public void releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest) {
-        logger.info("Releasing {} into FDP", task.shape);
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/metadata-schemas/" + task.uuid + "/versions");
-
-            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(
-                    this.objectMapper.writeValueAsString(releaseSchemaRequest)
-            );
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .POST(body)
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while releasing schema " + task.shape, e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Schema release was interrupted", e);
-        }
+        await(asyncClient.releaseSchema(task, releaseSchemaRequest), "Schema release was interrupted");
     }
 
     public List<ResourceResponseDto> fetchResources() {
-        logger.info("Fetching resources from fdp");
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/resource-definitions");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .GET()
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-
-            // Map response to body
-            return List.of(objectMapper.readValue(response.body(), ResourceResponseDto[].class));
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while fetching resources", e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Resource fetch was interrupted", e);
-        }
+        return await(asyncClient.fetchResources(), "Resource fetch was interrupted");
     }
 
-    public ResourceResponseDto fetchResource(String resourceId){
-        logger.info("fetching resource {} from FDP", resourceId);
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/resource-definitions/" + resourceId);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .GET()
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-
-            // Maps response body to object
-            return objectMapper.readValue(response.body(), ResourceResponseDto.class);
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while fetching resource " + resourceId, e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Resource fetch was interrupted", e);
-        }
+    public ResourceResponseDto fetchResource(String resourceId) {
+        return await(asyncClient.fetchResource(resourceId), "Resource fetch was interrupted");
     }
 
     public ResourceResponseDto insertResource(ResourceTask task, ResourceRequestDto resourceRequest) {
-        logger.info("Inserting {} resources into FDP", task.resource);
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/resource-definitions");
-
-            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(
-                    this.objectMapper.writeValueAsString(resourceRequest)
-            );
-
-            // Creates request
-            HttpRequest request = HttpRequest.newBuilder()
-                    .POST(body)
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-
-            // Maps response body to object
-            return objectMapper.readValue(response.body(), ResourceResponseDto.class);
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while inserting resource " + task.resource, e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Resource insertion was interrupted", e);
-        }
+        return await(asyncClient.insertResource(task, resourceRequest), "Resource insertion was interrupted");
     }
 
     public void updateResource(ResourceTask task, ResourceResponseDto resourceResponse) {
-        logger.info("updating resource {} in FDP", task.resource);
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/resource-definitions/" + task.UUID);
-
-            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(
-                    this.objectMapper.writeValueAsString(resourceResponse)
-            );
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .PUT(body)
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to reach FDP while updating resource " + task.resource, e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Resource update was interrupted", e);
-        }
+        await(asyncClient.updateResource(task, resourceResponse), "Resource update was interrupted");
     }
 
-
     public SettingsResponseDto getSettings() {
-        logger.info("getting settings from FDP");
-
-        try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/settings");
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .GET()
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-
-            // Maps response body to object
-            return objectMapper.readValue(response.body(), SettingsResponseDto.class);
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to get FDP settings", e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new FdpClientException("Get settings was interrupted", e);
-        }
+        return await(asyncClient.getSettings(), "Get settings was interrupted");
     }
 
     public void updateSettings(SettingsRequestDto settingsRequestDto) {
-        logger.info("updating settings in FDP");
+        await(asyncClient.updateSettings(settingsRequestDto), "Update settings was interrupted");
+    }
 
+    // Waits for the request and rethrows the original failure instead of the ExecutionException wrapper.
+    private static <T> T await(CompletableFuture<T> future, String interruptedMessage) {
         try {
-            isAuthenticated();
-
-            URI uri = new URI(this.hostname + "/settings");
-
-            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(
-                    this.objectMapper.writeValueAsString(settingsRequestDto)
-            );
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .PUT(body)
-                    .uri(uri)
-                    .header(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString())
-                    .header(HttpHeaders.AUTHORIZATION, this.authToken)
-                    .build();
-
-            // Sends request
-            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Handle each response based on Fair Data Point (FDP) Swagger documentation.
-            HttpRequestUtils.handleResponseStatus(response);
-        } catch (IOException | URISyntaxException e) {
-            throw new FdpClientException("Failed to update settings", e);
+            return future.get();
         } catch (InterruptedException e) {
+            future.cancel(true);
             Thread.currentThread().interrupt();
-            throw new FdpClientException("Update settings was interrupted", e);
+            throw new FdpClientException(interruptedMessage, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new FdpClientException(e.getCause().getMessage(), e.getCause());
         }
     }
-
 }
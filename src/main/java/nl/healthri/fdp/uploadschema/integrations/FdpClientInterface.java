@@ -9,17 +9,21 @@ import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
 import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
 import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
 import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
 import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
 import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
 import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface FdpClientInterface {
     void setAuthToken(LoginResponseDto loginResponse);
     LoginResponseDto getAuthToken(LoginRequestDto loginRequest) throws FdpClientException;
 
     List<SchemaDataResponseDto> fetchSchemas() throws FdpClientException;
+    List<SchemaSummaryDto> fetchSchemaSummaries(Predicate<String> retainDefinition) throws FdpClientException;
+    SchemaDataResponseDto fetchSchema(String schemaUuid) throws FdpClientException;
     ResourceResponseDto insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) throws FdpClientException;
     void updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) throws FdpClientException;
     void releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest) throws FdpClientException;
@@ -0,0 +1,42 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * Immutable view of the connection to one FDP: the host and the authorization header to send. A new token gives a
+ * new session, so a request always uses a host and token that belong together, also while another thread logs in.
+ *
+ * @param hostname      base URL of the FDP.
+ * @param authorization value of the Authorization header, or null before login.
+ */
+public record FdpSession(URI hostname, String authorization) {
+
+    public FdpSession {
+        Objects.requireNonNull(hostname, "URL must not be null");
+    }
+
+    public static FdpSession anonymous(URI hostname) {
+        return new FdpSession(hostname, null);
+    }
+
+    public FdpSession withToken(LoginResponseDto loginResponse) {
+        return new FdpSession(hostname, loginResponse.asHeaderString());
+    }
+
+    public boolean isAuthenticated() {
+        return authorization != null && !authorization.isBlank();
+    }
+
+    public URI resolve(String path) {
+        return URI.create(hostname + path);
+    }
+
+    // Keeps the token out of log messages.
+    @Override
+    public String toString() {
+        return "FdpSession[" + hostname + (isAuthenticated() ? ", authenticated]" : "]");
+    }
+}
@@ -0,0 +1,165 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import nl.healthri.fdp.uploadschema.integrations.metrics.CountingInputStream;
+import org.apache.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for FDP requests and responses. Responses are always requested with {@code Accept-Encoding: gzip} and
+ * decompressed while they are read. Compressing request bodies is opt-in, the FDP (or a proxy in front of it) has to
+ * accept {@code Content-Encoding: gzip}, and only bodies larger than {@link #MIN_SIZE} are compressed.
+ */
+public class HttpCompression {
+    public static final String GZIP = "gzip";
+    // Smaller bodies (login, settings) don't gain anything from compression.
+    public static final int MIN_SIZE = 1024;
+
+    private final boolean gzipRequests;
+
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder requestBytesSent = new LongAdder();
+    private final LongAdder responseBytesReceived = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+
+    /**
+     * @param requestBytes          size of the request bodies that were compressed.
+     * @param requestBytesSent      size of those bodies after compression.
+     * @param responseBytesReceived size of the gzip responses as received.
+     * @param responseBytes         size of those responses after decompression.
+     */
+    public record Stats(long requestBytes, long requestBytesSent, long responseBytesReceived, long responseBytes) {
+        public long bytesSaved() {
+            return (requestBytes - requestBytesSent) + (responseBytes - responseBytesReceived);
+        }
+    }
+
+    /**
+     * @param gzipRequests compress request bodies with gzip.
+     */
+    public HttpCompression(boolean gzipRequests) {
+        this.gzipRequests = gzipRequests;
+    }
+
+    public boolean gzipRequests() {
+        return gzipRequests;
+    }
+
+    public void acceptGzip(HttpRequest.Builder builder) {
+        builder.header(HttpHeaders.ACCEPT_ENCODING, GZIP);
+    }
+
+    /**
+     * Writes a request body, straight into the chunks that are sent. When enabled the body is compressed while it
+     * is written, as soon as it turns out to be larger than {@link #MIN_SIZE}.
+     *
+     * @return a publisher for the body, when it is compressed the Content-Encoding header is set on the builder.
+     */
+    public HttpRequest.BodyPublisher encode(HttpRequest.Builder builder, BodyWriter writer) throws IOException {
+        ChunkedOutputStream body = new ChunkedOutputStream();
+        if (!gzipRequests) {
+            writer.writeTo(body);
+            return body.publisher();
+        }
+
+        GzipAboveThreshold out = new GzipAboveThreshold(body);
+        try (out) {
+            writer.writeTo(out);
+        }
+        if (out.compressing()) {
+            requestBytes.add(out.written);
+            requestBytesSent.add(body.size());
+            builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return body.publisher();
+    }
+
+    /**
+     * @return the response body, decompressed when the FDP sent it with {@code Content-Encoding: gzip}.
+     */
+    public InputStream decode(HttpResponse<?> response, InputStream body) throws IOException {
+        boolean gzip = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)
+                .map(encoding -> encoding.trim().equalsIgnoreCase(GZIP))
+                .orElse(false);
+        if (!gzip) {
+            return body;
+        }
+        // GZIPInputStream reads the header right away, which fails on the empty body of e.g. a PUT response.
+        PushbackInputStream in = new PushbackInputStream(new CountingInputStream(body, responseBytesReceived), 1);
+        int first = in.read();
+        if (first == -1) {
+            return in;
+        }
+        in.unread(first);
+        return new CountingInputStream(new GZIPInputStream(in, 8192), responseBytes);
+    }
+
+    public Stats stats() {
+        return new Stats(requestBytes.sum(), requestBytesSent.sum(), responseBytesReceived.sum(), responseBytes.sum());
+    }
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // Buffers the first MIN_SIZE bytes, when more is written everything goes through gzip.
+    private static class GzipAboveThreshold extends OutputStream {
+        private final OutputStream target;
+        private final byte[] head = new byte[MIN_SIZE];
+        private int headSize;
+        private GZIPOutputStream gzip;
+        private long written;
+        private boolean closed;
+
+        private GzipAboveThreshold(OutputStream target) {
+            this.target = target;
+        }
+
+        boolean compressing() {
+            return gzip != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            written += length;
+            if (gzip == null && headSize + length <= MIN_SIZE) {
+                System.arraycopy(buffer, offset, head, headSize, length);
+                headSize += length;
+                return;
+            }
+            if (gzip == null) {
+                gzip = new GZIPOutputStream(target, 8192);
+                gzip.write(head, 0, headSize);
+            }
+            gzip.write(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (gzip != null) {
+                gzip.close();
+            } else {
+                target.write(head, 0, headSize);
+                target.close();
+            }
+        }
+    }
+}
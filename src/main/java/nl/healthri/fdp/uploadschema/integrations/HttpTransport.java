@@ -0,0 +1,128 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import nl.healthri.fdp.uploadschema.config.fdp.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The HTTP client shared by the FDP client and the {@link nl.healthri.fdp.uploadschema.utils.FileHandler}, so
+ * connections (and TLS sessions) are set up once per host per run and reused for every request.
+ * <p>
+ * The client delivers the response bodies on its own executor. The responses are read and mapped on a separate one,
+ * {@link #executor()}, because reading a streamed body blocks until the client has delivered the next part: with a
+ * single pool a small FIXED pool could be fully blocked on bodies that no thread is left to deliver.
+ */
+public class HttpTransport implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(HttpTransport.class);
+
+    public enum ExecutorType {VIRTUAL, FIXED}
+
+    /**
+     * @param httpVersion     preferred HTTP version, HTTP/2 falls back to HTTP/1.1 when the server doesn't support it.
+     * @param connectTimeout  timeout for setting up a connection.
+     * @param requestTimeout  timeout for a single request, until the response headers are received.
+     * @param executorType    threads used by the client and to map the responses.
+     * @param executorThreads size of both pools (the client's and the one mapping the responses), only used with
+     *                        {@link ExecutorType#FIXED}.
+     * @param gzipRequests    compress request bodies, see {@link HttpCompression}.
+     */
+    public record Config(HttpClient.Version httpVersion, Duration connectTimeout, Duration requestTimeout,
+                         ExecutorType executorType, int executorThreads, boolean gzipRequests) {
+
+        public static Config defaults() {
+            return new Config(HttpClient.Version.HTTP_2, Duration.ofSeconds(10), Duration.ofSeconds(60), ExecutorType.VIRTUAL, 8, false);
+        }
+
+        /**
+         * @return this configuration with the values set in the transport section of the Properties.yaml.
+         */
+        public Config with(Properties.TransportProperties properties) {
+            if (properties == null) {
+                return this;
+            }
+            return new Config(
+                    properties.httpVersion() == null ? httpVersion : parseVersion(properties.httpVersion()),
+                    properties.connectTimeout() == null ? connectTimeout : Duration.ofSeconds(properties.connectTimeout()),
+                    properties.requestTimeout() == null ? requestTimeout : Duration.ofSeconds(properties.requestTimeout()),
+                    properties.executor() == null ? executorType : ExecutorType.valueOf(properties.executor().toUpperCase(Locale.ROOT)),
+                    properties.executorThreads() == null ? executorThreads : properties.executorThreads(),
+                    properties.gzipRequests() == null ? gzipRequests : properties.gzipRequests());
+        }
+
+        // Accepts the names used on the command line and in the yaml file: HTTP_2, http/2, 2, HTTP_1_1, http/1.1, 1.1
+        public static HttpClient.Version parseVersion(String value) {
+            return switch (value.trim().toUpperCase(Locale.ROOT).replace("HTTP", "").replaceAll("[/_]", "").replace(".", "")) {
+                case "2" -> HttpClient.Version.HTTP_2;
+                case "11" -> HttpClient.Version.HTTP_1_1;
+                default -> throw new IllegalArgumentException("Unknown HTTP version: " + value + ", use HTTP_2 or HTTP_1_1");
+            };
+        }
+    }
+
+    private final Config config;
+    private final ExecutorService clientExecutor;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    public HttpTransport(Config config) {
+        this.config = Objects.requireNonNull(config, "Config must not be null");
+        this.clientExecutor = newExecutor(config);
+        this.executor = newExecutor(config);
+        this.client = HttpClient.newBuilder()
+                .version(config.httpVersion())
+                .connectTimeout(config.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(clientExecutor)
+                .build();
+        logger.info("HTTP transport: {}, connect timeout {}s, request timeout {}s, {} executor",
+                config.httpVersion(), config.connectTimeout().toSeconds(), config.requestTimeout().toSeconds(), config.executorType());
+    }
+
+    public static HttpTransport defaults() {
+        return new HttpTransport(Config.defaults());
+    }
+
+    public HttpClient client() {
+        return client;
+    }
+
+    /**
+     * @return the executor to read and map the responses on, never the one the client delivers the bodies on.
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    public Config config() {
+        return config;
+    }
+
+    /**
+     * @return a request builder for the uri with the configured request timeout.
+     */
+    public HttpRequest.Builder newRequest(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(config.requestTimeout());
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        executor.shutdown();
+        clientExecutor.shutdown();
+    }
+
+    private static ExecutorService newExecutor(Config config) {
+        return config.executorType() == ExecutorType.FIXED
+                ? Executors.newFixedThreadPool(config.executorThreads())
+                : Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,81 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.utils.CompressedText;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Reads the /metadata-schemas listing with the Jackson streaming parser. Only the fields needed for planning
+ * are read. The definition of the latest version is only decoded for the schemas accepted by the predicate,
+ * and kept compressed, for all other schemas the string is skipped without being materialized.
+ */
+public class SchemaListingParser {
+    private final JsonFactory jsonFactory;
+
+    public SchemaListingParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public List<SchemaSummaryDto> parse(InputStream in, Predicate<String> retainDefinition) throws IOException {
+        List<SchemaSummaryDto> schemas = new ArrayList<>();
+
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of schemas, but got " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                schemas.add(readSchema(parser, retainDefinition));
+            }
+        }
+        return schemas;
+    }
+
+    private SchemaSummaryDto readSchema(JsonParser parser, Predicate<String> retainDefinition) throws IOException {
+        String uuid = null;
+        String name = null;
+        String version = null;
+        CompressedText definition = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "uuid" -> uuid = parser.getValueAsString();
+                case "name" -> name = parser.getValueAsString();
+                case "latest" -> {
+                    if (value != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String latestField = parser.currentName();
+                        parser.nextToken();
+                        if (latestField.equals("version")) {
+                            version = parser.getValueAsString();
+                        } else if (latestField.equals("definition") && (name == null || retainDefinition.test(name))) {
+                            // name can follow latest in the JSON, in that case the definition is dropped below.
+                            String text = parser.getValueAsString();
+                            definition = text == null ? null : CompressedText.of(text);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (definition != null && (name == null || !retainDefinition.test(name))) {
+            definition = null;
+        }
+        return new SchemaSummaryDto(uuid, name, version, definition);
+    }
+}
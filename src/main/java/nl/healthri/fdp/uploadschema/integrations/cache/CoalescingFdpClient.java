@@ -0,0 +1,206 @@
+package nl.healthri.fdp.uploadschema.integrations.cache;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.ReleaseSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Shares identical FDP reads: callers asking for the same listing while a request for it is in flight wait for
+ * that request instead of sending their own, and the result is reused for a short TTL. Any write to a collection
+ * (schemas, resources or settings) drops the reads of that collection, so a caller never gets a listing from
+ * before its own write.
+ * <p>
+ * {@link #fetchResource} is not shared, callers change the returned resource before sending it back.
+ */
+public class CoalescingFdpClient implements FdpClientInterface {
+    private final FdpClientInterface delegate;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private enum Collection {SCHEMAS, RESOURCES, SETTINGS}
+
+    private record Key(Collection collection, String operation, Object argument) {
+    }
+
+    private static final class Entry {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile Instant completedAt;
+    }
+
+    /**
+     * @param hits   reads answered from a result within the TTL.
+     * @param joined reads that waited for an identical request already in flight.
+     * @param misses reads sent to the FDP.
+     */
+    public record Stats(long hits, long joined, long misses) {
+    }
+
+    /**
+     * @param ttl how long a result is reused, zero to only share requests that are in flight at the same time.
+     */
+    public CoalescingFdpClient(FdpClientInterface delegate, Duration ttl) {
+        this(delegate, ttl, Clock.systemUTC());
+    }
+
+    CoalescingFdpClient(FdpClientInterface delegate, Duration ttl, Clock clock) {
+        this.delegate = Objects.requireNonNull(delegate, "FdpClient must not be null");
+        this.ttl = Objects.requireNonNull(ttl, "TTL must not be null");
+        this.clock = clock;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.get(), joined.get(), misses.get());
+    }
+
+    public void setAuthToken(LoginResponseDto loginResponse) {
+        delegate.setAuthToken(loginResponse);
+    }
+
+    public LoginResponseDto getAuthToken(LoginRequestDto loginRequest) {
+        return delegate.getAuthToken(loginRequest);
+    }
+
+    public List<SchemaDataResponseDto> fetchSchemas() {
+        return read(new Key(Collection.SCHEMAS, "fetchSchemas", null), delegate::fetchSchemas);
+    }
+
+    // The predicate is part of the key, callers share a read when they pass the same predicate instance.
+    public List<SchemaSummaryDto> fetchSchemaSummaries(Predicate<String> retainDefinition) {
+        return read(new Key(Collection.SCHEMAS, "fetchSchemaSummaries", retainDefinition), () -> delegate.fetchSchemaSummaries(retainDefinition));
+    }
+
+    public SchemaDataResponseDto fetchSchema(String schemaUuid) {
+        return read(new Key(Collection.SCHEMAS, "fetchSchema", schemaUuid), () -> delegate.fetchSchema(schemaUuid));
+    }
+
+    public ResourceResponseDto insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        return write(Collection.SCHEMAS, () -> delegate.insertSchema(task, updateSchemaRequest));
+    }
+
+    public void updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        write(Collection.SCHEMAS, () -> {
+            delegate.updateSchema(task, updateSchemaRequest);
+            return null;
+        });
+    }
+
+    public void releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest) {
+        write(Collection.SCHEMAS, () -> {
+            delegate.releaseSchema(task, releaseSchemaRequest);
+            return null;
+        });
+    }
+
+    public List<ResourceResponseDto> fetchResources() {
+        return read(new Key(Collection.RESOURCES, "fetchResources", null), delegate::fetchResources);
+    }
+
+    public ResourceResponseDto fetchResource(String resourceId) {
+        return delegate.fetchResource(resourceId);
+    }
+
+    public ResourceResponseDto insertResource(ResourceTask task, ResourceRequestDto resourceRequest) {
+        return write(Collection.RESOURCES, () -> delegate.insertResource(task, resourceRequest));
+    }
+
+    public void updateResource(ResourceTask task, ResourceResponseDto resourceResponse) {
+        write(Collection.RESOURCES, () -> {
+            delegate.updateResource(task, resourceResponse);
+            return null;
+        });
+    }
+
+    public SettingsResponseDto getSettings() {
+        return read(new Key(Collection.SETTINGS, "getSettings", null), delegate::getSettings);
+    }
+
+    public void updateSettings(SettingsRequestDto settingsRequestDto) {
+        write(Collection.SETTINGS, () -> {
+            delegate.updateSettings(settingsRequestDto);
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(Key key, Supplier<T> call) {
+        while (true) {
+            Entry existing = entries.get(key);
+            if (existing != null && !isExpired(existing)) {
+                (existing.result.isDone() ? hits : joined).incrementAndGet();
+                return (T) await(existing.result);
+            }
+
+            Entry entry = new Entry();
+            boolean owner = existing == null ? entries.putIfAbsent(key, entry) == null : entries.replace(key, existing, entry);
+            if (!owner) {
+                continue; // another caller started the request first, share that one
+            }
+
+            misses.incrementAndGet();
+            try {
+                T result = call.get();
+                entry.completedAt = clock.instant();
+                entry.result.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                // Failures are not cached, the callers waiting for this request get the failure, the next caller retries.
+                entries.remove(key, entry);
+                entry.result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    // A read that was in flight while the write ran can hold the old state, so the reads are dropped after the write.
+    private <T> T write(Collection collection, Supplier<T> call) {
+        try {
+            return call.get();
+        } finally {
+            entries.keySet().removeIf(key -> key.collection() == collection);
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        Instant completedAt = entry.completedAt;
+        return completedAt != null && !clock.instant().isBefore(completedAt.plus(ttl));
+    }
+
+    private static Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
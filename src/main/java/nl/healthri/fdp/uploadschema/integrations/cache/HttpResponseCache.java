@@ -0,0 +1,215 @@
+package nl.healthri.fdp.uploadschema.integrations.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache for FDP GET responses, stored per host. Entries with an ETag or Last-Modified header are
+ * revalidated with a conditional request (If-None-Match / If-Modified-Since), so an unchanged listing costs a 304.
+ * When the FDP doesn't send validators, an entry is reused without a request while it is younger than the TTL.
+ * Bodies are stored under their SHA-256 and the meta file names the body it belongs to, so concurrent runs never pair
+ * the validators of one response with the body of another.
+ */
+public class HttpResponseCache {
+    private final Path directory;
+    private final Duration ttl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong fresh = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    /**
+     * @param root the cache directory, a subdirectory is created for every FDP host.
+     * @param host the FDP this cache is used for.
+     * @param ttl  how long entries without ETag/Last-Modified are reused without asking the FDP.
+     */
+    public HttpResponseCache(Path root, URI host, Duration ttl) {
+        this.directory = root.resolve(hostDirectory(host));
+        this.ttl = ttl;
+        try {
+            createPrivateDirectory(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create HTTP cache directory " + this.directory, e);
+        }
+    }
+
+    /**
+     * @param sha256       hash of the body, part of the name of the file the body is stored in.
+     * @param etag         ETag of the stored response, or null.
+     * @param lastModified Last-Modified of the stored response, or null.
+     * @param storedAt     moment the response was received from the FDP, in epoch milliseconds.
+     */
+    public record Entry(URI uri, String sha256, String etag, String lastModified, long storedAt) {
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    /**
+     * @param fresh       responses reused without a request because they were younger than the TTL.
+     * @param revalidated responses confirmed by the FDP with a 304.
+     * @param stored      responses (re)written to the cache.
+     */
+    public record Stats(long fresh, long revalidated, long stored) {
+    }
+
+    public Optional<Entry> lookup(URI uri) {
+        Path meta = metaFile(uri);
+        if (!Files.exists(meta)) {
+            return Optional.empty();
+        }
+        try {
+            Entry entry = objectMapper.readValue(meta.toFile(), Entry.class);
+            return entry.sha256() != null && Files.exists(bodyFile(entry)) ? Optional.of(entry) : Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable HTTP cache entry {}: {}", meta, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return true when the entry can be used without asking the FDP, only for entries without validators.
+     */
+    public boolean isFresh(Entry entry) {
+        boolean isFresh = !entry.hasValidators() && Instant.ofEpochMilli(entry.storedAt()).plus(ttl).isAfter(Instant.now());
+        if (isFresh) {
+            fresh.incrementAndGet();
+        }
+        return isFresh;
+    }
+
+    public HttpRequest.Builder addValidators(HttpRequest.Builder builder, Entry entry) {
+        if (entry.etag() != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, entry.etag());
+        }
+        if (entry.lastModified() != null) {
+            builder.header(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified());
+        }
+        return builder;
+    }
+
+    public InputStream read(Entry entry) throws IOException {
+        return Files.newInputStream(bodyFile(entry));
+    }
+
+    /**
+     * Called when the FDP answered 304, the stored body is still valid.
+     */
+    public void revalidated(Entry entry) {
+        revalidated.incrementAndGet();
+        logger.info("Using cached response for {}, not modified on FDP", entry.uri());
+    }
+
+    /**
+     * Copies the response body into the cache. The body is moved in place before the meta file that refers to it, both
+     * with an atomic move, and the body of the replaced entry is removed afterwards.
+     *
+     * @return the stored entry, read the body back with {@link #read(Entry)}.
+     */
+    public Entry store(URI uri, java.net.http.HttpHeaders headers, InputStream body) throws IOException {
+        Optional<Entry> previous = lookup(uri);
+        MessageDigest digest = sha256();
+        Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            Files.copy(new DigestInputStream(body, digest), tmp, StandardCopyOption.REPLACE_EXISTING);
+            Entry entry = new Entry(uri, HexFormat.of().formatHex(digest.digest()),
+                    headers.firstValue(HttpHeaders.ETAG).orElse(null),
+                    headers.firstValue(HttpHeaders.LAST_MODIFIED).orElse(null),
+                    System.currentTimeMillis());
+
+            Files.move(tmp, bodyFile(entry), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeAtomically(metaFile(uri), objectMapper.writeValueAsBytes(entry));
+            if (previous.isPresent() && !previous.get().sha256().equals(entry.sha256())) {
+                Files.deleteIfExists(bodyFile(previous.get()));
+            }
+            stored.incrementAndGet();
+            return entry;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Removes the cached responses for the given collection, used after writes so a TTL entry is never stale.
+     */
+    public void invalidate(URI uri) {
+        try {
+            Optional<Entry> entry = lookup(uri);
+            Files.deleteIfExists(metaFile(uri));
+            if (entry.isPresent()) {
+                Files.deleteIfExists(bodyFile(entry.get()));
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to invalidate HTTP cache entry for {}: {}", uri, e.getMessage());
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(fresh.get(), revalidated.get(), stored.get());
+    }
+
+    private Path metaFile(URI uri) {
+        return directory.resolve(key(uri) + ".json");
+    }
+
+    private Path bodyFile(Entry entry) {
+        return directory.resolve(key(entry.uri()) + "-" + entry.sha256() + ".body");
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String hostDirectory(URI host) {
+        String port = host.getPort() == -1 ? "" : "_" + host.getPort();
+        return (host.getScheme() + "_" + host.getHost() + port).replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String key(URI uri) {
+        return HexFormat.of().formatHex(sha256().digest(uri.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // responses are only readable by the current user, they are fetched with admin credentials.
+    private static void createPrivateDirectory(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwx------"));
+        }
+    }
+}
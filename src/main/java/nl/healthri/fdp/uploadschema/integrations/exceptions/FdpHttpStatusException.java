@@ -0,0 +1,24 @@
+package nl.healthri.fdp.uploadschema.integrations.exceptions;
+
+import java.io.IOException;
+
+// Unsuccessful HTTP status from the FDP, the status code is kept so callers can decide whether to retry.
+public class FdpHttpStatusException extends IOException {
+    private final int statusCode;
+
+    public FdpHttpStatusException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true for statuses that are expected to go away by themselves: server errors and 429 Too Many Requests.
+     */
+    public boolean isTransient() {
+        return statusCode >= 500 || statusCode == 429;
+    }
+}
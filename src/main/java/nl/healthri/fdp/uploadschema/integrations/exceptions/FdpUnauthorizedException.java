@@ -0,0 +1,8 @@
+package nl.healthri.fdp.uploadschema.integrations.exceptions;
+
+// 401 from the FDP: the token is missing, expired or revoked. A SecurityException like the other auth failures.
+public class FdpUnauthorizedException extends SecurityException {
+    public FdpUnauthorizedException(String message) {
+        super(message);
+    }
+}
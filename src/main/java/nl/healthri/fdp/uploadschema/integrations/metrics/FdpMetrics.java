@@ -0,0 +1,157 @@
+package nl.healthri.fdp.uploadschema.integrations.metrics;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Per-endpoint metrics of the requests sent to the FDP: number of calls per status code, request and response
+ * bytes and a latency histogram. Endpoints are grouped by method and path template, UUIDs in the path are replaced
+ * by {@code {uuid}}, e.g. {@code PUT /metadata-schemas/{uuid}/draft}.
+ */
+public class FdpMetrics {
+    // Status recorded for requests that got no response (connection refused, timeout).
+    public static final int NO_RESPONSE = 0;
+
+    private static final Pattern UUID_SEGMENT = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private final String basePath;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param hostname the FDP url, its path (if any) is left out of the endpoint templates.
+     */
+    public FdpMetrics(URI hostname) {
+        String path = hostname.getPath() == null ? "" : hostname.getPath();
+        this.basePath = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    /**
+     * @param statusCounts  number of calls per HTTP status, {@link #NO_RESPONSE} for calls without a response.
+     * @param requestBytes  bytes sent in request bodies.
+     * @param responseBytes bytes read from response bodies.
+     */
+    public record EndpointSnapshot(String method, String endpoint, long calls, Map<Integer, Long> statusCounts,
+                                   long requestBytes, long responseBytes,
+                                   Duration p50, Duration p90, Duration p99, Duration max) {
+    }
+
+    /**
+     * Starts measuring a request, call {@link Call#finish(int)} or {@link Call#failed()} when it is done.
+     */
+    public Call start(HttpRequest request) {
+        long requestBytes = request.bodyPublisher()
+                .map(HttpRequest.BodyPublisher::contentLength)
+                .filter(length -> length > 0)
+                .orElse(0L);
+        Endpoint endpoint = endpoints.computeIfAbsent(request.method() + " " + template(request.uri()),
+                key -> new Endpoint(request.method(), template(request.uri())));
+        return new Call(endpoint, requestBytes, System.nanoTime());
+    }
+
+    public List<EndpointSnapshot> snapshot() {
+        return endpoints.values().stream()
+                .map(Endpoint::snapshot)
+                .sorted(Comparator.comparing(EndpointSnapshot::endpoint).thenComparing(EndpointSnapshot::method))
+                .toList();
+    }
+
+    /**
+     * @return the metrics as a table, one line per endpoint.
+     */
+    public String summary() {
+        StringBuilder table = new StringBuilder(String.format("%-6s %-40s %6s %-20s %10s %11s %8s %8s %8s %8s%n",
+                "METHOD", "ENDPOINT", "CALLS", "STATUS", "REQ BYTES", "RESP BYTES", "P50 ms", "P90 ms", "P99 ms", "MAX ms"));
+        for (EndpointSnapshot e : snapshot()) {
+            String statuses = e.statusCounts().entrySet().stream()
+                    .map(s -> (s.getKey() == NO_RESPONSE ? "err" : s.getKey()) + "x" + s.getValue())
+                    .collect(Collectors.joining(","));
+            table.append(String.format("%-6s %-40s %6d %-20s %10d %11d %8.1f %8.1f %8.1f %8.1f%n",
+                    e.method(), e.endpoint(), e.calls(), statuses, e.requestBytes(), e.responseBytes(),
+                    millis(e.p50()), millis(e.p90()), millis(e.p99()), millis(e.max())));
+        }
+        return table.toString();
+    }
+
+    String template(URI uri) {
+        String path = uri.getPath() == null ? "" : uri.getPath();
+        if (!basePath.isEmpty() && path.startsWith(basePath)) {
+            path = path.substring(basePath.length());
+        }
+        return UUID_SEGMENT.matcher(path).replaceAll("{uuid}");
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+
+    /**
+     * One request in flight.
+     */
+    public static class Call {
+        private final Endpoint endpoint;
+        private final long requestBytes;
+        private final long started;
+        private final LongAdder responseBytes = new LongAdder();
+
+        private Call(Endpoint endpoint, long requestBytes, long started) {
+            this.endpoint = endpoint;
+            this.requestBytes = requestBytes;
+            this.started = started;
+        }
+
+        /**
+         * @return the response body, counting the bytes read from it.
+         */
+        public InputStream count(InputStream body) {
+            return new CountingInputStream(body, responseBytes);
+        }
+
+        // Latency is measured until the response body has been read and mapped.
+        public void finish(int statusCode) {
+            endpoint.record(statusCode, requestBytes, responseBytes.sum(), Duration.ofNanos(System.nanoTime() - started));
+        }
+
+        public void failed() {
+            finish(NO_RESPONSE);
+        }
+    }
+
+    private static class Endpoint {
+        private final String method;
+        private final String template;
+        private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Endpoint(String method, String template) {
+            this.method = method;
+            this.template = template;
+        }
+
+        private void record(int statusCode, long requestBytes, long responseBytes, Duration duration) {
+            statusCounts.computeIfAbsent(statusCode, s -> new LongAdder()).increment();
+            this.requestBytes.add(requestBytes);
+            this.responseBytes.add(responseBytes);
+            latency.record(duration);
+        }
+
+        private EndpointSnapshot snapshot() {
+            Map<Integer, Long> statuses = new TreeMap<>();
+            statusCounts.forEach((status, count) -> statuses.put(status, count.sum()));
+            return new EndpointSnapshot(method, template, latency.count(), statuses,
+                    requestBytes.sum(), responseBytes.sum(),
+                    latency.percentile(50), latency.percentile(90), latency.percentile(99), latency.max());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package nl.healthri.fdp.uploadschema.integrations.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: every power of two (in microseconds) is split in 8 buckets,
+ * so a percentile is accurate to about 6%. Recording is one array increment, no samples are kept.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Up to 2^40 microseconds (12 days), longer latencies end up in the last bucket.
+    private static final int BUCKETS = SUB_BUCKETS + (40 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(Duration latency) {
+        long micros = Math.max(0, latency.toNanos() / 1000);
+        counts.incrementAndGet(Math.min(bucket(micros), BUCKETS - 1));
+        count.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public Duration max() {
+        return Duration.ofNanos(max.get() * 1000);
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the latency below which the given percentage of the recorded latencies fall, zero when empty.
+     */
+    public Duration percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(midpoint(i), max.get()) * 1000);
+            }
+        }
+        return max();
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long midpoint(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lower + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,140 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.integrations.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests in flight to one FDP with additive increase / multiplicative decrease. The limit
+ * starts at the ceiling, every successful request raises it by {@code 1/limit} (so about one per round of requests),
+ * a sign of overload (429, 503 or a timeout) multiplies it by the backoff ratio. Callers over the limit wait in line.
+ * <p>
+ * Slow responses alone don't lower the limit: the time of a request includes transferring and mapping the body, so
+ * a large schema or listing would look like overload while the FDP is fine.
+ */
+public class AimdLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AimdLimiter.class);
+
+    /**
+     * @param ceiling      maximum (and initial) number of requests in flight.
+     * @param backoffRatio factor applied to the limit on overload, e.g. 0.5.
+     */
+    public record Config(int ceiling, double backoffRatio) {
+        public Config {
+            if (ceiling < 1) {
+                throw new IllegalArgumentException("ceiling must be at least 1, got " + ceiling);
+            }
+        }
+
+        public static Config withCeiling(int ceiling) {
+            return new Config(ceiling, 0.5);
+        }
+    }
+
+    /**
+     * @param limit     current limit.
+     * @param inFlight  requests in flight.
+     * @param decreases number of times the limit was lowered.
+     * @param queueP50  median time waited for a permit.
+     * @param queueP99  99th percentile of the time waited for a permit.
+     * @param queueMax  longest time waited for a permit.
+     */
+    public record Stats(int limit, int inFlight, long decreases, Duration queueP50, Duration queueP99, Duration queueMax) {
+    }
+
+    public enum Outcome {
+        // answered
+        SUCCESS,
+        // 429, 503 or timeout
+        OVERLOAD,
+        // failure that says nothing about the load of the FDP, e.g. 404 or 500
+        IGNORE
+    }
+
+    /**
+     * A permit to send one request, the epoch is used to lower the limit only once for requests that were sent
+     * together under the same limit.
+     */
+    public record Permit(long epoch) {
+    }
+
+    private final Config config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+
+    private double limit;
+    private int inFlight;
+    private long epoch;
+    private long decreases;
+
+    public AimdLimiter(Config config) {
+        this.config = config;
+        this.limit = config.ceiling();
+    }
+
+    public Permit acquire() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            while (inFlight >= currentLimit()) {
+                available.await();
+            }
+            inFlight++;
+            queueTime.record(Duration.ofNanos(System.nanoTime() - start));
+            return new Permit(epoch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FdpClientException("Interrupted while waiting to send a request to the FDP", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(Permit permit, Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight--;
+            switch (outcome) {
+                case SUCCESS -> limit = Math.min(config.ceiling(), limit + 1 / limit);
+                case OVERLOAD -> {
+                    // Requests sent under the old limit fail together, lower the limit once for them.
+                    if (permit.epoch() == epoch) {
+                        limit = Math.max(1, limit * config.backoffRatio());
+                        epoch++;
+                        decreases++;
+                        logger.warn("FDP is overloaded, lowering concurrency to {}", currentLimit());
+                    }
+                }
+                case IGNORE -> {
+                }
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int currentLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats((int) limit, inFlight, decreases, queueTime.percentile(50), queueTime.percentile(99), queueTime.max());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker for one FDP host. After {@code failureThreshold} transient failures in a row the circuit opens
+ * and calls are rejected without contacting the FDP. When {@code openDuration} has passed one trial call is let
+ * through (half open), its result closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String host;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openUntil = Instant.MIN;
+    private long timesOpened;
+
+    public CircuitBreaker(String host, int failureThreshold, Duration openDuration) {
+        this(host, failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    CircuitBreaker(String host, int failureThreshold, Duration openDuration, Clock clock) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    public static CircuitBreaker defaults(String host) {
+        return new CircuitBreaker(host, 5, Duration.ofSeconds(10));
+    }
+
+    /**
+     * @return true when a call may be sent to the FDP, false when the circuit is open (or a trial call is running).
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        Instant now = clock.instant();
+        if (now.isBefore(openUntil)) {
+            return false;
+        }
+        // Open period is over, or the previous trial request didn't report back in time.
+        logger.info("Circuit for {} is half open, sending a trial request", host);
+        state = State.HALF_OPEN;
+        openUntil = now.plus(openDuration);
+        return true;
+    }
+
+    /**
+     * @return time until the circuit allows a trial request, zero when closed.
+     */
+    public synchronized Duration retryAfter() {
+        if (state == State.CLOSED) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(clock.instant(), openUntil);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    // The FDP answered (also with a 4xx): the host is up.
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Circuit for {} is closed again", host);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("Circuit for {} is open after {} failure(s), pausing requests for {}s", host, consecutiveFailures, openDuration.toSeconds());
+            state = State.OPEN;
+            openUntil = clock.instant().plus(openDuration);
+            timesOpened++;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized long timesOpened() {
+        return timesOpened;
+    }
+}
@@ -0,0 +1,142 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.ReleaseSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpHttpStatusException;
+
+import java.net.http.HttpTimeoutException;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Sends the requests for one FDP through an {@link AimdLimiter}, so parallel publishing backs off when the FDP
+ * is overloaded. Sits directly on top of the FdpClient, every attempt (also a retry) takes a permit, but the wait
+ * between retries doesn't hold one.
+ */
+public class ConcurrencyLimitedFdpClient implements FdpClientInterface {
+    private final FdpClientInterface delegate;
+    private final AimdLimiter limiter;
+
+    public ConcurrencyLimitedFdpClient(FdpClientInterface delegate, AimdLimiter limiter) {
+        this.delegate = Objects.requireNonNull(delegate, "FdpClient must not be null");
+        this.limiter = Objects.requireNonNull(limiter, "AimdLimiter must not be null");
+    }
+
+    public AimdLimiter limiter() {
+        return limiter;
+    }
+
+    public void setAuthToken(LoginResponseDto loginResponse) {
+        delegate.setAuthToken(loginResponse);
+    }
+
+    public LoginResponseDto getAuthToken(LoginRequestDto loginRequest) {
+        return limited(() -> delegate.getAuthToken(loginRequest));
+    }
+
+    public List<SchemaDataResponseDto> fetchSchemas() {
+        return limited(delegate::fetchSchemas);
+    }
+
+    public List<SchemaSummaryDto> fetchSchemaSummaries(Predicate<String> retainDefinition) {
+        return limited(() -> delegate.fetchSchemaSummaries(retainDefinition));
+    }
+
+    public SchemaDataResponseDto fetchSchema(String schemaUuid) {
+        return limited(() -> delegate.fetchSchema(schemaUuid));
+    }
+
+    public ResourceResponseDto insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        return limited(() -> delegate.insertSchema(task, updateSchemaRequest));
+    }
+
+    public void updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        limited(() -> {
+            delegate.updateSchema(task, updateSchemaRequest);
+            return null;
+        });
+    }
+
+    public void releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest) {
+        limited(() -> {
+            delegate.releaseSchema(task, releaseSchemaRequest);
+            return null;
+        });
+    }
+
+    public List<ResourceResponseDto> fetchResources() {
+        return limited(delegate::fetchResources);
+    }
+
+    public ResourceResponseDto fetchResource(String resourceId) {
+        return limited(() -> delegate.fetchResource(resourceId));
+    }
+
+    public ResourceResponseDto insertResource(ResourceTask task, ResourceRequestDto resourceRequest) {
+        return limited(() -> delegate.insertResource(task, resourceRequest));
+    }
+
+    public void updateResource(ResourceTask task, ResourceResponseDto resourceResponse) {
+        limited(() -> {
+            delegate.updateResource(task, resourceResponse);
+            return null;
+        });
+    }
+
+    public SettingsResponseDto getSettings() {
+        return limited(delegate::getSettings);
+    }
+
+    public void updateSettings(SettingsRequestDto settingsRequestDto) {
+        limited(() -> {
+            delegate.updateSettings(settingsRequestDto);
+            return null;
+        });
+    }
+
+    private <T> T limited(Supplier<T> call) {
+        AimdLimiter.Permit permit = limiter.acquire();
+        AimdLimiter.Outcome outcome = AimdLimiter.Outcome.IGNORE;
+        try {
+            T result = call.get();
+            outcome = AimdLimiter.Outcome.SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            if (isOverload(e)) {
+                outcome = AimdLimiter.Outcome.OVERLOAD;
+            }
+            throw e;
+        } finally {
+            limiter.release(permit, outcome);
+        }
+    }
+
+    /**
+     * @return true when the FDP (or the proxy in front of it) signals it can't keep up: 429 Too Many Requests,
+     * 503 Service Unavailable or a timeout. Other errors are retried, but don't lower the limit.
+     */
+    static boolean isOverload(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof FdpHttpStatusException statusException) {
+                return statusException.statusCode() == 429 || statusException.statusCode() == 503;
+            }
+            if (t instanceof HttpTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
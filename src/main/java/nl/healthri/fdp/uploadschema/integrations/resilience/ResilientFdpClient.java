@@ -0,0 +1,265 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.ReleaseSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpHttpStatusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries FDP calls that failed with a transient error (5xx, 429, timeout or I/O error), so a run survives a FDP
+ * that restarts during a deploy.
+ * <p>
+ * Reads and PUT updates are idempotent and are simply sent again. The POSTs (insert schema, release schema, insert
+ * resource) are not: when they fail we don't know whether the FDP applied them, so before sending them again the
+ * listing is checked, and when the schema/resource/version is already there that result is returned instead.
+ * <p>
+ * All retries of one client share a {@link CircuitBreaker} (one client talks to one FDP) and a {@link RetryBudget}.
+ */
+public class ResilientFdpClient implements FdpClientInterface {
+    private static final Logger logger = LoggerFactory.getLogger(ResilientFdpClient.class);
+
+    private final FdpClientInterface delegate;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final AtomicLong writesFoundApplied = new AtomicLong();
+
+    /**
+     * @param retries            number of retries.
+     * @param writesFoundApplied failed POSTs that turned out to be applied by the FDP, so were not sent again.
+     * @param circuitOpened      number of times the circuit breaker opened.
+     */
+    public record Stats(long retries, long writesFoundApplied, long circuitOpened) {
+    }
+
+    public ResilientFdpClient(FdpClientInterface delegate, URI hostname, RetryPolicy retryPolicy) {
+        this(delegate, retryPolicy, CircuitBreaker.defaults(hostname.getAuthority()), RetryBudget.defaults());
+    }
+
+    public ResilientFdpClient(FdpClientInterface delegate, RetryPolicy retryPolicy, CircuitBreaker circuitBreaker, RetryBudget retryBudget) {
+        this.delegate = Objects.requireNonNull(delegate, "FdpClient must not be null");
+        this.retryPolicy = Objects.requireNonNull(retryPolicy, "RetryPolicy must not be null");
+        this.circuitBreaker = Objects.requireNonNull(circuitBreaker, "CircuitBreaker must not be null");
+        this.retryBudget = Objects.requireNonNull(retryBudget, "RetryBudget must not be null");
+    }
+
+    public Stats stats() {
+        return new Stats(retryBudget.retries(), writesFoundApplied.get(), circuitBreaker.timesOpened());
+    }
+
+    public void setAuthToken(LoginResponseDto loginResponse) {
+        delegate.setAuthToken(loginResponse);
+    }
+
+    // Requesting a token has no side effects we care about, so it is retried like a read.
+    public LoginResponseDto getAuthToken(LoginRequestDto loginRequest) {
+        return execute("authentication", () -> delegate.getAuthToken(loginRequest), null);
+    }
+
+    public List<SchemaDataResponseDto> fetchSchemas() {
+        return execute("fetch schemas", delegate::fetchSchemas, null);
+    }
+
+    public List<SchemaSummaryDto> fetchSchemaSummaries(Predicate<String> retainDefinition) {
+        return execute("fetch schemas", () -> delegate.fetchSchemaSummaries(retainDefinition), null);
+    }
+
+    public SchemaDataResponseDto fetchSchema(String schemaUuid) {
+        return execute("fetch schema " + schemaUuid, () -> delegate.fetchSchema(schemaUuid), null);
+    }
+
+    public ResourceResponseDto insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        return execute("insert schema " + task.shape,
+                () -> delegate.insertSchema(task, updateSchemaRequest),
+                () -> delegate.fetchSchemaSummaries(name -> false).stream()
+                        .filter(s -> updateSchemaRequest.name().equals(s.name()))
+                        .findFirst()
+                        .map(s -> new ResourceResponseDto(s.uuid(), s.name(), null, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>())));
+    }
+
+    public void updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        execute("update schema " + task.shape, () -> {
+            delegate.updateSchema(task, updateSchemaRequest);
+            return null;
+        }, null);
+    }
+
+    public void releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest) {
+        execute("release schema " + task.shape, () -> {
+            delegate.releaseSchema(task, releaseSchemaRequest);
+            return true;
+        }, () -> Optional.of(delegate.fetchSchema(task.uuid))
+                .filter(s -> s.versions() != null && s.versions().contains(releaseSchemaRequest.version()))
+                .map(s -> true));
+    }
+
+    public List<ResourceResponseDto> fetchResources() {
+        return execute("fetch resources", delegate::fetchResources, null);
+    }
+
+    public ResourceResponseDto fetchResource(String resourceId) {
+        return execute("fetch resource " + resourceId, () -> delegate.fetchResource(resourceId), null);
+    }
+
+    public ResourceResponseDto insertResource(ResourceTask task, ResourceRequestDto resourceRequest) {
+        return execute("insert resource " + task.resource,
+                () -> delegate.insertResource(task, resourceRequest),
+                () -> delegate.fetchResources().stream()
+                        .filter(r -> resourceRequest.name().equals(r.name()))
+                        .findFirst());
+    }
+
+    public void updateResource(ResourceTask task, ResourceResponseDto resourceResponse) {
+        execute("update resource " + task.resource, () -> {
+            delegate.updateResource(task, resourceResponse);
+            return null;
+        }, null);
+    }
+
+    public SettingsResponseDto getSettings() {
+        return execute("get settings", delegate::getSettings, null);
+    }
+
+    public void updateSettings(SettingsRequestDto settingsRequestDto) {
+        execute("update settings", () -> {
+            delegate.updateSettings(settingsRequestDto);
+            return null;
+        }, null);
+    }
+
+    /**
+     * @param alreadyApplied null for idempotent calls, for the others it looks up the result of an earlier attempt
+     *                       that failed but might have been applied by the FDP (an empty Optional when it wasn't).
+     */
+    private <T> T execute(String operation, Supplier<T> call, Supplier<Optional<T>> alreadyApplied) {
+        retryBudget.recordCall();
+
+        RuntimeException lastFailure = null;
+        Duration delay = Duration.ZERO;
+        boolean verify = false;
+        for (int attempt = 1; ; attempt++) {
+            if (attempt > 1) {
+                if (attempt > retryPolicy.maxAttempts()) {
+                    logger.error("Giving up on {} after {} attempts", operation, retryPolicy.maxAttempts());
+                    throw lastFailure;
+                }
+                sleep(delay, operation);
+            }
+
+            if (!circuitBreaker.allowRequest()) {
+                lastFailure = Objects.requireNonNullElseGet(lastFailure,
+                        () -> new FdpClientException("Circuit for the FDP is open, " + operation + " was not sent", null));
+                delay = max(retryPolicy.backoff(attempt), circuitBreaker.retryAfter());
+                continue;
+            }
+
+            if (verify) {
+                try {
+                    Optional<T> applied = alreadyApplied.get();
+                    circuitBreaker.recordSuccess();
+                    if (applied.isPresent()) {
+                        logger.info("{} failed, but was applied by the FDP, not sending it again", operation);
+                        writesFoundApplied.incrementAndGet();
+                        return applied.get();
+                    }
+                    verify = false;
+                } catch (RuntimeException e) {
+                    lastFailure = onFailure(operation, attempt, e);
+                    delay = retryPolicy.backoff(attempt);
+                    continue;
+                }
+            }
+
+            if (attempt > 1 && !retryBudget.tryRetry()) {
+                logger.error("Retry budget exhausted, not retrying {}", operation);
+                throw lastFailure;
+            }
+            try {
+                T result = call.get();
+                circuitBreaker.recordSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                lastFailure = onFailure(operation, attempt, e);
+                delay = retryPolicy.backoff(attempt);
+                verify = alreadyApplied != null;
+            }
+        }
+    }
+
+    // Rethrows errors that won't go away by retrying, returns the transient ones.
+    private RuntimeException onFailure(String operation, int attempt, RuntimeException e) {
+        if (!isTransient(e)) {
+            // The FDP answered (e.g. 4xx), so the host itself is fine.
+            circuitBreaker.recordSuccess();
+            throw e;
+        }
+        circuitBreaker.recordFailure();
+        logger.warn("{} failed (attempt {}/{}): {}", operation, attempt, retryPolicy.maxAttempts(), rootMessage(e));
+        return e;
+    }
+
+    /**
+     * @return true for failures that can go away by themselves: 5xx/429 responses, timeouts and I/O errors
+     * (connection refused or reset). Other 4xx responses and errors reading the JSON are not retried.
+     */
+    static boolean isTransient(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof FdpHttpStatusException statusException) {
+                return statusException.isTransient();
+            }
+            if (t instanceof JsonProcessingException) {
+                return false;
+            }
+            if (t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String rootMessage(Throwable failure) {
+        Throwable root = failure;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static void sleep(Duration delay, String operation) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FdpClientException("Retry of " + operation + " was interrupted", e);
+        }
+    }
+}
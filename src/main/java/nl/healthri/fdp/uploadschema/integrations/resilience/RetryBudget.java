@@ -0,0 +1,44 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+/**
+ * Limits the retries to a fraction of the calls, so a FDP that is really down is not hammered by every worker
+ * retrying every call. A minimum number of retries is always allowed, so a short run can still ride out an outage.
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final int minRetries;
+    private long calls;
+    private long retries;
+
+    /**
+     * @param ratio      retries allowed per call, e.g. 0.2 allows one retry for every five calls.
+     * @param minRetries retries that are always allowed, on top of the ratio.
+     */
+    public RetryBudget(double ratio, int minRetries) {
+        this.ratio = ratio;
+        this.minRetries = minRetries;
+    }
+
+    public static RetryBudget defaults() {
+        return new RetryBudget(0.2, 20);
+    }
+
+    public synchronized void recordCall() {
+        calls++;
+    }
+
+    /**
+     * @return true (and the retry is taken from the budget) when the budget allows another retry.
+     */
+    public synchronized boolean tryRetry() {
+        if (retries >= minRetries + ratio * calls) {
+            return false;
+        }
+        retries++;
+        return true;
+    }
+
+    public synchronized long retries() {
+        return retries;
+    }
+}
@@ -0,0 +1,41 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter.
+ *
+ * @param maxAttempts    total number of attempts for one call, including the first one.
+ * @param initialBackoff backoff before the first retry, doubled for every next retry.
+ * @param maxBackoff     upper bound of the backoff.
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1, got " + maxAttempts);
+        }
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(6, Duration.ofSeconds(1), Duration.ofSeconds(30));
+    }
+
+    public static RetryPolicy noRetries() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * @param retry 1 for the first retry, 2 for the second, etc.
+     * @return the exponential backoff with "equal jitter": half of it is fixed, the other half random, so
+     * concurrent callers that failed at the same moment don't all come back at the same moment.
+     */
+    public Duration backoff(int retry) {
+        long max = maxBackoff.toMillis();
+        long exponential = initialBackoff.toMillis() << Math.min(retry - 1, 30);
+        long backoff = exponential < 0 ? max : Math.min(max, exponential);
+        long half = backoff / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(backoff - half + 1));
+    }
+}
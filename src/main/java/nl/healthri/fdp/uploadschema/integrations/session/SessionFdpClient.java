@@ -0,0 +1,188 @@
+package nl.healthri.fdp.uploadschema.integrations.session;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.ReleaseSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpUnauthorizedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Manages the FDP token for a run. When the FDP answers 401 (token expired or revoked) a new token is requested
+ * with the credentials of the login and the failed request is replayed once.
+ * <p>
+ * With a {@link TokenStore} the token is kept on disk per host and user, and the login request of the next run
+ * is answered from the store, saving the round-trip to the FDP.
+ */
+public class SessionFdpClient implements FdpClientInterface {
+    private final FdpClientInterface delegate;
+    private final URI hostname;
+    private final TokenStore tokenStore;
+
+    private LoginRequestDto credentials;
+    private LoginResponseDto token;
+    private long refreshes;
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionFdpClient.class);
+
+    public SessionFdpClient(FdpClientInterface delegate, URI hostname) {
+        this(delegate, hostname, null);
+    }
+
+    /**
+     * @param tokenStore store to reuse tokens between runs, or null to login every run.
+     */
+    public SessionFdpClient(FdpClientInterface delegate, URI hostname, TokenStore tokenStore) {
+        this.delegate = Objects.requireNonNull(delegate, "FdpClient must not be null");
+        this.hostname = Objects.requireNonNull(hostname, "URL must not be null");
+        this.tokenStore = tokenStore;
+    }
+
+    /**
+     * @return number of times the token was refreshed after a 401.
+     */
+    public synchronized long refreshes() {
+        return refreshes;
+    }
+
+    public synchronized void setAuthToken(LoginResponseDto loginResponse) {
+        this.token = loginResponse;
+        delegate.setAuthToken(loginResponse);
+    }
+
+    public LoginResponseDto getAuthToken(LoginRequestDto loginRequest) {
+        synchronized (this) {
+            this.credentials = loginRequest;
+        }
+        if (tokenStore != null) {
+            Optional<LoginResponseDto> stored = tokenStore.lookup(hostname, loginRequest.email());
+            if (stored.isPresent()) {
+                logger.info("Reusing stored token for {} at {}", loginRequest.email(), hostname);
+                return stored.get();
+            }
+        }
+        return login(loginRequest);
+    }
+
+    public List<SchemaDataResponseDto> fetchSchemas() {
+        return withSession(delegate::fetchSchemas);
+    }
+
+    public List<SchemaSummaryDto> fetchSchemaSummaries(Predicate<String> retainDefinition) {
+        return withSession(() -> delegate.fetchSchemaSummaries(retainDefinition));
+    }
+
+    public SchemaDataResponseDto fetchSchema(String schemaUuid) {
+        return withSession(() -> delegate.fetchSchema(schemaUuid));
+    }
+
+    public ResourceResponseDto insertSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        return withSession(() -> delegate.insertSchema(task, updateSchemaRequest));
+    }
+
+    public void updateSchema(ShapeTask task, UpdateSchemaRequestDto updateSchemaRequest) {
+        withSession(() -> {
+            delegate.updateSchema(task, updateSchemaRequest);
+            return null;
+        });
+    }
+
+    public void releaseSchema(ShapeTask task, ReleaseSchemaRequestDto releaseSchemaRequest) {
+        withSession(() -> {
+            delegate.releaseSchema(task, releaseSchemaRequest);
+            return null;
+        });
+    }
+
+    public List<ResourceResponseDto> fetchResources() {
+        return withSession(delegate::fetchResources);
+    }
+
+    public ResourceResponseDto fetchResource(String resourceId) {
+        return withSession(() -> delegate.fetchResource(resourceId));
+    }
+
+    public ResourceResponseDto insertResource(ResourceTask task, ResourceRequestDto resourceRequest) {
+        return withSession(() -> delegate.insertResource(task, resourceRequest));
+    }
+
+    public void updateResource(ResourceTask task, ResourceResponseDto resourceResponse) {
+        withSession(() -> {
+            delegate.updateResource(task, resourceResponse);
+            return null;
+        });
+    }
+
+    public SettingsResponseDto getSettings() {
+        return withSession(delegate::getSettings);
+    }
+
+    public void updateSettings(SettingsRequestDto settingsRequestDto) {
+        withSession(() -> {
+            delegate.updateSettings(settingsRequestDto);
+            return null;
+        });
+    }
+
+    // A 401 means the request was not applied, so replaying it is safe, also for POSTs.
+    private <T> T withSession(Supplier<T> call) {
+        LoginResponseDto usedToken;
+        synchronized (this) {
+            usedToken = this.token;
+        }
+        try {
+            return call.get();
+        } catch (FdpUnauthorizedException e) {
+            if (!refresh(usedToken)) {
+                throw e;
+            }
+            return call.get();
+        }
+    }
+
+    /**
+     * Logs in again, unless another request already replaced the rejected token.
+     *
+     * @return false when there are no credentials to login with.
+     */
+    private synchronized boolean refresh(LoginResponseDto rejectedToken) {
+        if (credentials == null) {
+            return false;
+        }
+        if (!Objects.equals(token, rejectedToken)) {
+            return true;
+        }
+        logger.info("FDP rejected the token, logging in again as {}", credentials.email());
+        if (tokenStore != null) {
+            tokenStore.remove(hostname, credentials.email());
+        }
+        setAuthToken(login(credentials));
+        refreshes++;
+        return true;
+    }
+
+    private LoginResponseDto login(LoginRequestDto loginRequest) {
+        LoginResponseDto loginResponse = delegate.getAuthToken(loginRequest);
+        if (tokenStore != null) {
+            tokenStore.store(hostname, loginRequest.email(), loginResponse);
+        }
+        return loginResponse;
+    }
+}
@@ -0,0 +1,152 @@
+package nl.healthri.fdp.uploadschema.integrations.session;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Keeps FDP tokens on disk between runs, one file per host and user, readable only by the current user. The tokens are
+ * kept in an {@value #SUBDIRECTORY} directory the store creates itself inside the given directory. A token is
+ * reused until shortly before the expiry in its JWT {@code exp} claim; tokens without a readable expiry are reused
+ * until the FDP rejects them.
+ */
+public class TokenStore {
+    // Don't hand out a token that expires during the run.
+    private static final Duration EXPIRY_MARGIN = Duration.ofMinutes(1);
+    static final String SUBDIRECTORY = "fdp-tokens";
+    private static final String DIRECTORY_PERMISSIONS = "rwx------";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenStore.class);
+
+    /**
+     * @param token     the token as returned by the FDP.
+     * @param expiresAt expiry in epoch seconds, 0 when unknown.
+     */
+    public record StoredToken(String token, long expiresAt) {
+    }
+
+    /**
+     * @param parent directory to create the token directory in, its own permissions are left alone.
+     */
+    public TokenStore(Path parent) {
+        this.directory = parent.resolve(SUBDIRECTORY);
+        try {
+            Files.createDirectories(parent);
+            if (Files.isDirectory(directory)) {
+                checkPermissions(directory);
+            } else {
+                Files.createDirectory(directory);
+                restrict(directory, DIRECTORY_PERMISSIONS);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't use token directory " + directory, e);
+        }
+    }
+
+    public Optional<LoginResponseDto> lookup(URI host, String user) {
+        Path file = tokenFile(host, user);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            StoredToken stored = objectMapper.readValue(file.toFile(), StoredToken.class);
+            if (stored.expiresAt() != 0 && Instant.ofEpochSecond(stored.expiresAt()).minus(EXPIRY_MARGIN).isBefore(Instant.now())) {
+                logger.info("Stored token for {} at {} has expired", user, host);
+                remove(host, user);
+                return Optional.empty();
+            }
+            return Optional.of(new LoginResponseDto(stored.token()));
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable token file {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void store(URI host, String user, LoginResponseDto token) {
+        Path file = tokenFile(host, user);
+        try {
+            Path tmp = Files.createTempFile(directory, "token", ".tmp");
+            try {
+                restrict(tmp, "rw-------");
+                Files.write(tmp, objectMapper.writeValueAsBytes(new StoredToken(token.token(), expiresAt(token.token()))));
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            // Only costs a login in the next run.
+            logger.warn("Failed to store token in {}: {}", file, e.getMessage());
+        }
+    }
+
+    public void remove(URI host, String user) {
+        try {
+            Files.deleteIfExists(tokenFile(host, user));
+        } catch (IOException e) {
+            logger.warn("Failed to remove stored token for {} at {}: {}", user, host, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the {@code exp} claim of a JWT in epoch seconds, 0 when the token is not a JWT or has no expiry.
+     */
+    static long expiresAt(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return 0;
+        }
+        try {
+            JsonNode claims = new ObjectMapper().readTree(Base64.getUrlDecoder().decode(parts[1]));
+            return claims.path("exp").asLong(0);
+        } catch (IOException | IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    private Path tokenFile(URI host, String user) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest((host.getScheme() + "://" + host.getAuthority() + "\n" + user).getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // an existing token directory is not changed, it must not be accessible by other users.
+    private static void checkPermissions(Path path) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                && !Files.getPosixFilePermissions(path).equals(PosixFilePermissions.fromString(DIRECTORY_PERMISSIONS))) {
+            throw new IOException("Token directory " + path + " is accessible by other users, set its permissions to " + DIRECTORY_PERMISSIONS);
+        }
+    }
+
+    // tokens give admin access to the FDP, so only the current user may read them.
+    private static void restrict(Path path, String permissions) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString(permissions));
+        }
+    }
+}
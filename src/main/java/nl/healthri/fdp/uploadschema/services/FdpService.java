@@ -15,24 +15,50 @@ import nl.healthri.fdp.uploadschema.dto.settings.SettingsRequestDto;
 import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
 import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
 import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.utils.ResourceCatalog;
+import nl.healthri.fdp.uploadschema.utils.SchemaCatalog;
 import nl.healthri.fdp.uploadschema.utils.SchemaInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 import static nl.healthri.fdp.uploadschema.config.fdp.Settings.convertToEntity;
 
 public class FdpService implements FdpServiceInterface {
     private final FdpClientInterface fdpClient;
+    private final SchemaCatalog schemaCatalog;
+    private final ResourceCatalog resourceCatalog;
 
     private static final Logger logger = LoggerFactory.getLogger(FdpService.class);
 
+    /**
+     * Only names, UUIDs and versions are kept from the schema listing, the definitions needed for a run are fetched
+     * by UUID with {@link #loadSchemaDefinitions}. Use {@link #FdpService(FdpClientInterface, Predicate)} to keep
+     * them from the listing instead.
+     */
     public FdpService(FdpClientInterface fdpClient) {
+        this(fdpClient, schema -> false);
+    }
+
+    /**
+     * @param retainDefinition the schemas for which the definition is kept in memory when reading the schema
+     *                         listing. Other definitions are skipped, and fetched by UUID when needed.
+     */
+    public FdpService(FdpClientInterface fdpClient, Predicate<String> retainDefinition) {
         this.fdpClient = fdpClient;
+        this.schemaCatalog = new SchemaCatalog(() -> fdpClient.fetchSchemaSummaries(retainDefinition));
+        this.resourceCatalog = new ResourceCatalog(fdpClient::fetchResources);
     }
 
     public void authenticate(String username, String password) throws FdpClientException {
@@ -45,59 +71,95 @@ public class FdpService implements FdpServiceInterface {
         return fdpClient.fetchSchemas();
     }
 
-    public void createSchema(ShapeTask task) throws FdpClientException {
-            List<SchemaDataResponseDto> schemaDataResponseList = getAllSchemas();
+    public Map<String, SchemaInfo> getSchemaInfoMap() throws FdpClientException {
+        return schemaCatalog.asMap();
+    }
 
-            Map<String, SchemaInfo> schemaInfoMap = new HashMap<>();
-            for(SchemaDataResponseDto schemaDataResponse : schemaDataResponseList) {
-                Version version = new Version(schemaDataResponse.latest().version());
-                SchemaInfo schemaInfo = new SchemaInfo(version, schemaDataResponse.uuid(), schemaDataResponse.latest().definition());
-                schemaInfoMap.put(schemaDataResponse.name(), schemaInfo);
+    /**
+     * Makes sure the catalog holds the definition of the given schemas. Definitions that were not kept from the
+     * listing are fetched by UUID, in parallel. Schemas that are not on the FDP yet are ignored, and so are schemas
+     * that only have a draft: they keep an entry without definition.
+     */
+    public void loadSchemaDefinitions(Collection<String> schemaNames) throws FdpClientException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Boolean>> fetches = new ArrayList<>();
+            for (String name : schemaNames) {
+                SchemaInfo schemaInfo = schemaCatalog.get(name).orElse(null);
+                if (schemaInfo == null || schemaInfo.compressedDefinition() != null) {
+                    continue;
+                }
+                fetches.add(CompletableFuture.supplyAsync(() -> {
+                    SchemaDataResponseDto schema = fdpClient.fetchSchema(schemaInfo.uuid());
+                    if (schema.latest() == null) {
+                        logger.warn("Schema {} has no released version on the FDP, no definition to compare with", name);
+                        return false;
+                    }
+                    schemaCatalog.put(name, new SchemaInfo(new Version(schema.latest().version()), schema.uuid(), schema.latest().definition()));
+                    return true;
+                }, executor));
             }
 
+            CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new)).join();
+            logger.info("Fetched {} schema definitions from FDP", fetches.stream().filter(CompletableFuture::join).count());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new FdpClientException("Failed to fetch schema definitions", e.getCause());
+        }
+    }
 
-            UpdateSchemaRequestDto updateSchemaRequest = new UpdateSchemaRequestDto(
-                    task.shape,
-                    task.description(), false,
-                    task.model,
-                    task.getParentUID(schemaInfoMap),
-                    task.shape,
-                    task.url());
-
-            ResourceResponseDto resourceResponse = fdpClient.insertSchema(task, updateSchemaRequest);
-            task.uuid = resourceResponse.uuid();
+    public SchemaCatalog getSchemaCatalog() {
+        return schemaCatalog;
     }
 
+    public void createSchema(ShapeTask task) throws FdpClientException {
+        UpdateSchemaRequestDto updateSchemaRequest = new UpdateSchemaRequestDto(
+                task.shape,
+                task.description(), false,
+                task.model,
+                task.getParentUID(this::parentUuid),
+                task.shape,
+                task.url());
 
-    public void updateSchema(ShapeTask task) throws FdpClientException {
-        List<SchemaDataResponseDto> schemaDataResponseList = getAllSchemas();
+        // Use the returned uuid, not the task field, so the catalog entry can't mix in a value written by another thread.
+        String uuid = fdpClient.insertSchema(task, updateSchemaRequest).uuid();
+        task.uuid = uuid;
+        schemaCatalog.put(task.shape, new SchemaInfo(task.version, uuid, task.model));
+    }
 
-        Map<String, SchemaInfo> schemaInfoMap = new HashMap<>();
-        for(SchemaDataResponseDto schemaDataResponse : schemaDataResponseList) {
-            Version version = new Version(schemaDataResponse.latest().version());
-            SchemaInfo schemaInfo = new SchemaInfo(version, schemaDataResponse.uuid(), schemaDataResponse.latest().definition());
-            schemaInfoMap.put(schemaDataResponse.name(), schemaInfo);
-        }
 
+    public void updateSchema(ShapeTask task) throws FdpClientException {
         UpdateSchemaRequestDto updateSchemaRequest = new UpdateSchemaRequestDto(
                 task.shape,
                 task.description(), false,
                 task.model,
-                task.getParentUID(schemaInfoMap),
+                task.getParentUID(this::parentUuid),
                 task.shape,
                 task.url());
 
         fdpClient.updateSchema(task, updateSchemaRequest);
     }
 
+    // Parents are published before their children, so they are in the catalog by now.
+    private String parentUuid(String parent) {
+        return schemaCatalog.findUuid(parent)
+                .orElseThrow(() -> new IllegalStateException("Parent schema " + parent + " is not on the FDP"));
+    }
+
     public void releaseSchema(ShapeTask task) throws FdpClientException{
         ReleaseSchemaRequestDto releaseSchemaRequest =  ReleaseSchemaRequestDto.of(task.shape, false, task.version);
 
         fdpClient.releaseSchema(task, releaseSchemaRequest);
+        schemaCatalog.put(task.shape, new SchemaInfo(task.version, task.uuid, task.model));
     }
 
     public List<ResourceResponseDto> getAllResources() throws FdpClientException{
-        return fdpClient.fetchResources();
+        return resourceCatalog.list();
+    }
+
+    public ResourceCatalog getResourceCatalog() {
+        return resourceCatalog;
     }
 
     public void createResource(ResourceTask task) throws FdpClientException{
@@ -111,21 +173,91 @@ public class FdpService implements FdpServiceInterface {
 
         ResourceResponseDto resourceResponse = fdpClient.insertResource(task, resourceRequest);
         task.UUID = resourceResponse.uuid();
+        resourceCatalog.put(resourceResponse);
     }
 
     public void updateResource(ResourceTask task) throws FdpClientException{
-        ResourceResponseDto resourceResponse = fdpClient.fetchResource(task.UUID);
-
-        if (resourceResponse.children().stream().anyMatch(c -> c.resourceDefinitionUuid().equals(task.childUUuid))) {
-            logger.info("resource {} already has link to child {}", resourceResponse.name(), task.childName);
-        } else {
-            //FIXME TagsURI is hardcoded..
-            ResourceResponseDto.ListView listView =  new ResourceResponseDto.ListView(task.pluralName(), "http://www.w3.org/ns/dcat#themeTaxonomy", new ArrayList<>());
-            ResourceResponseDto.Child child = new ResourceResponseDto.Child(task.childUUuid, task.childRelationIri, listView);
-            resourceResponse.children().add(child);
+        updateResourceChildren(List.of(task));
+    }
+
+    /**
+     * Brings the schema of an existing resource in line with the task, only when it differs. The url prefix is left
+     * alone: changing it would break every metadata URL under the prefix.
+     *
+     * @return true when the resource was updated on the FDP.
+     */
+    public boolean updateResourceFields(ResourceTask task) throws FdpClientException {
+        ResourceResponseDto current = currentResource(task.UUID);
+        if (!Objects.equals(current.urlPrefix(), task.url())) {
+            logger.warn("resource {} has url prefix '{}' instead of '{}', not changed", current.name(), current.urlPrefix(), task.url());
+        }
+        ArrayList<String> schemaUuids = task.shapeUUUID == null || task.shapeUUUID.isEmpty()
+                ? current.metadataSchemaUuids() : new ArrayList<>(List.of(task.shapeUUUID));
+        if (Objects.equals(current.metadataSchemaUuids(), schemaUuids)) {
+            logger.info("resource {} is up to date", current.name());
+            return false;
         }
 
+        ResourceResponseDto resourceResponse = new ResourceResponseDto(current.uuid(), current.name(), current.urlPrefix(),
+                schemaUuids, current.targetClassUris(), current.children(), current.externalLinks());
         fdpClient.updateResource(task, resourceResponse);
+        resourceCatalog.put(resourceResponse);
+        return true;
+    }
+
+    /**
+     * Adds the missing children of one parent resource, and corrects the relation of the existing ones, with a single
+     * read-modify-write, so the updates for the different children can't overwrite each other. The list view is only
+     * set on the links created here, existing links keep theirs. Children of the parent that are not in the tasks are
+     * left alone.
+     *
+     * @param tasks child links of the same parent resource (same UUID).
+     * @return true when the parent was updated on the FDP.
+     */
+    public boolean updateResourceChildren(List<ResourceTask> tasks) throws FdpClientException {
+        ResourceTask parent = tasks.getFirst();
+        if (tasks.stream().anyMatch(t -> !parent.UUID.equals(t.UUID))) {
+            throw new IllegalArgumentException("All tasks should belong to parent resource " + parent.resource);
+        }
+        ResourceResponseDto current = currentResource(parent.UUID);
+        ResourceResponseDto resourceResponse = new ResourceResponseDto(current.uuid(), current.name(), current.urlPrefix(),
+                current.metadataSchemaUuids(), current.targetClassUris(),
+                current.children() == null ? new ArrayList<>() : new ArrayList<>(current.children()), current.externalLinks());
+
+        int changed = 0;
+        for (ResourceTask task : tasks) {
+            List<ResourceResponseDto.Child> children = resourceResponse.children();
+            int index = IntStream.range(0, children.size())
+                    .filter(i -> children.get(i).resourceDefinitionUuid().equals(task.childUUuid))
+                    .findFirst().orElse(-1);
+            ResourceResponseDto.Child existing = index < 0 ? null : children.get(index);
+
+            if (existing == null) {
+                ResourceResponseDto.ListView listView = new ResourceResponseDto.ListView(task.listViewTitle(), task.listViewTagsUri(), new ArrayList<>());
+                children.add(new ResourceResponseDto.Child(task.childUUuid, task.childRelationIri, listView));
+                changed++;
+            } else if (!Objects.equals(existing.relationUri(), task.childRelationIri)) {
+                ResourceResponseDto.Child child = new ResourceResponseDto.Child(task.childUUuid, task.childRelationIri, existing.listView());
+                logger.info("resource {} has an outdated link to child {}, updating it", resourceResponse.name(), task.childName);
+                children.set(index, child);
+                changed++;
+            } else {
+                logger.info("resource {} already has link to child {}", resourceResponse.name(), task.childName);
+            }
+        }
+
+        if (changed == 0) {
+            logger.info("resource {} already has all its children, not updated", resourceResponse.name());
+            return false;
+        }
+        fdpClient.updateResource(parent, resourceResponse);
+        resourceCatalog.put(resourceResponse);
+        return true;
+    }
+
+    // The listing contains the children, only a resource that is not in the snapshot is fetched.
+    private ResourceResponseDto currentResource(String uuid) {
+        return resourceCatalog.getByUuid(uuid).orElseGet(() -> fdpClient.fetchResource(uuid));
     }
 
     public void updateSettings(Settings newSettings){
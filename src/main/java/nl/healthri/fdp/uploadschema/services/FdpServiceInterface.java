@@ -6,12 +6,18 @@ import nl.healthri.fdp.uploadschema.domain.ShapeTask;
 import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
 import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
 
+import nl.healthri.fdp.uploadschema.utils.SchemaInfo;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FdpServiceInterface {
     void authenticate(String username, String password);
 
     List<SchemaDataResponseDto> getAllSchemas();
+    Map<String, SchemaInfo> getSchemaInfoMap();
+    void loadSchemaDefinitions(Collection<String> schemaNames);
 
     void createSchema(ShapeTask task);
     void updateSchema(ShapeTask task);
@@ -20,6 +26,8 @@ public interface FdpServiceInterface {
     List<ResourceResponseDto> getAllResources();
     void createResource(ResourceTask task);
     void updateResource(ResourceTask task);
+    boolean updateResourceFields(ResourceTask task);
+    boolean updateResourceChildren(List<ResourceTask> tasks);
 
     void updateSettings(Settings settings);
 }
@@ -0,0 +1,132 @@
+package nl.healthri.fdp.uploadschema.services;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Brings the resource definitions on the FDP in line with the resources section of the Properties.yaml: missing
+ * resources are inserted, the schema of existing ones is corrected and every parent gets the links to its children
+ * (the list view is only set on new links, the url prefix of existing resources is never changed). Only what differs
+ * is written, so running it against an FDP that is
+ * already up to date doesn't write anything.
+ * <p>
+ * Resources are independent of each other, so their inserts and updates run concurrently. The child links are only
+ * written once all inserts succeeded, because they need the UUIDs of the new resources.
+ */
+public class ResourceSyncService {
+    private final FdpServiceInterface fdpService;
+    private final ResourceTaskServiceInterface resourceTaskService;
+    private final int workers;
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceSyncService.class);
+
+    /**
+     * @param inserted  resources that were created.
+     * @param updated   existing resources of which fields or child links were changed.
+     * @param unchanged resources that were already up to date.
+     */
+    public record SyncResult(List<String> inserted, List<String> updated, List<String> unchanged) {
+        public int writes() {
+            return inserted.size() + updated.size();
+        }
+    }
+
+    public ResourceSyncService(FdpServiceInterface fdpService, ResourceTaskServiceInterface resourceTaskService, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers should be at least 1, but was " + workers);
+        }
+        this.fdpService = fdpService;
+        this.resourceTaskService = resourceTaskService;
+        this.workers = workers;
+    }
+
+    public SyncResult sync() {
+        Set<String> inserted = ConcurrentHashMap.newKeySet();
+        Set<String> updated = ConcurrentHashMap.newKeySet();
+        Set<String> checked = ConcurrentHashMap.newKeySet();
+
+        List<ResourceTask> tasks = resourceTaskService.createTasks();
+        // createResource sets the UUID of the task, the catalog picks up the new resource for the parent phase.
+        List<ResourceTask> inserts = tasks.stream().filter(ResourceTask::isInsert).toList();
+        runConcurrently("inserted", inserts, task -> task.resource, task -> {
+            fdpService.createResource(task);
+            inserted.add(task.resource);
+        });
+
+        List<ResourceTask> existing = tasks.stream().filter(task -> !task.isInsert()).toList();
+        runConcurrently("updated", existing, task -> task.resource, task -> {
+            checked.add(task.resource);
+            if (fdpService.updateResourceFields(task)) {
+                updated.add(task.resource);
+            }
+        });
+
+        // One update per parent with all its children, after the inserts so the child UUIDs are known.
+        List<ResourceTask> parentTasks = resourceTaskService.createParentTasks();
+        parentTasks.stream()
+                .filter(task -> !task.exists)
+                .forEach(task -> logger.warn("Parent resource {} is not on the FDP, its children are not linked", task.resource));
+        Collection<List<ResourceTask>> parents = parentTasks.stream()
+                .filter(ResourceTask::hasChild)
+                .collect(Collectors.groupingBy(task -> task.UUID, LinkedHashMap::new, Collectors.toList()))
+                .values();
+        runConcurrently("linked to its children", parents, children -> children.getFirst().resource, children -> {
+            String parent = children.getFirst().resource;
+            checked.add(parent);
+            if (fdpService.updateResourceChildren(children)) {
+                updated.add(parent);
+            }
+        });
+
+        updated.removeAll(inserted);
+        List<String> unchanged = checked.stream()
+                .filter(name -> !updated.contains(name) && !inserted.contains(name))
+                .sorted()
+                .toList();
+        return new SyncResult(inserted.stream().sorted().toList(), updated.stream().sorted().toList(), unchanged);
+    }
+
+    /**
+     * Runs the action for every item on at most {@code workers} threads. A failing item doesn't stop the others,
+     * when all are done the failures are logged per resource and reported together.
+     */
+    private <T> void runConcurrently(String action, Collection<T> items, Function<T, String> resourceName, Consumer<T> task) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, items.size()))) {
+            for (T item : items) {
+                executor.execute(() -> {
+                    try {
+                        task.accept(item);
+                    } catch (RuntimeException e) {
+                        failed.put(resourceName.apply(item), e);
+                    }
+                });
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            Map<String, Throwable> failures = new TreeMap<>(failed);
+            failures.forEach((resource, e) -> logger.error("Resource {} could not be {}: {}", resource, action, e.getMessage()));
+            throw new FdpClientException("Failed to sync resources, not " + action + ": " + failures.keySet(),
+                    failures.values().iterator().next());
+        }
+    }
+}
@@ -3,7 +3,6 @@ package nl.healthri.fdp.uploadschema.services;
 import nl.healthri.fdp.uploadschema.config.fdp.Properties;
 import nl.healthri.fdp.uploadschema.domain.ResourceTask;
 import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
-import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
 import nl.healthri.fdp.uploadschema.utils.ResourceInfo;
 import nl.healthri.fdp.uploadschema.utils.SchemaInfo;
 
@@ -11,7 +10,6 @@ import java.util.List;
 import java.util.Map;
 
 import static nl.healthri.fdp.uploadschema.utils.ResourceInfo.createResourceInfoMap;
-import static nl.healthri.fdp.uploadschema.utils.SchemaInfo.createSchemaInfoMap;
 
 public class ResourceTaskService implements  ResourceTaskServiceInterface {
     public FdpServiceInterface fdpService;
@@ -39,8 +37,7 @@ public class ResourceTaskService implements  ResourceTaskServiceInterface {
         List<ResourceResponseDto> fdpResourceResponseList = this.fdpService.getAllResources();
         Map<String, ResourceInfo> fdpResourceInfoMap = createResourceInfoMap(fdpResourceResponseList);
 
-        List<SchemaDataResponseDto> fdpSchemaDataResponseList = this.fdpService.getAllSchemas();
-        Map<String, SchemaInfo> fdpSchemaInfoMap = createSchemaInfoMap(fdpSchemaDataResponseList);
+        Map<String, SchemaInfo> fdpSchemaInfoMap = this.fdpService.getSchemaInfoMap();
 
         return properties.resources.entrySet().stream().map(propertyResource -> {
             String resourceName = propertyResource.getKey();
@@ -66,7 +63,7 @@ public class ResourceTaskService implements  ResourceTaskServiceInterface {
             // Gets all needed parent resource information from fdpResourceInfoMap to set to new resourceTask
             ParentResourceData parentResourceData = getParentResourceInfo(propertyResource, fdpResourceInfoMap);
 
-            return new ResourceTask(
+            ResourceTask task = new ResourceTask(
                     parentResourceData.parentResourceName,
                     parentResourceData.parentResourceUuid,
                     null,
@@ -75,6 +72,9 @@ public class ResourceTaskService implements  ResourceTaskServiceInterface {
                     parentResourceData.childName,
                     parentResourceData.exists
             );
+            task.childListViewTitle = propertyResource.getValue().listViewTitle();
+            task.childListViewTagsUri = propertyResource.getValue().listViewTagsUri();
+            return task;
         }).toList();
     }
 
@@ -0,0 +1,135 @@
+package nl.healthri.fdp.uploadschema.services;
+
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Publishes shape tasks concurrently while respecting the parent/child relation between schemas.
+ * A task is started as soon as all its parents (that are part of the same run) are published, so every
+ * dependency level runs in parallel: with the default configuration Resource, Dataset Series and Distribution
+ * start immediately and Catalog, Dataset and Data Service start together once Resource is done.
+ * A failing task doesn't abort the run, only the tasks depending on it are skipped.
+ */
+public class SchemaPublishScheduler {
+    private final int workers;
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaPublishScheduler.class);
+
+    public SchemaPublishScheduler(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers should be at least 1, but was " + workers);
+        }
+        this.workers = workers;
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public record PublishResult(List<String> published, Map<String, Throwable> failed, List<String> skipped) {
+        public boolean isSuccess() {
+            return failed.isEmpty() && skipped.isEmpty();
+        }
+    }
+
+    public PublishResult publish(List<ShapeTask> tasks, Consumer<ShapeTask> action) {
+        List<List<ShapeTask>> levels = levels(tasks);
+        logger.info("Publishing {} schemas in {} dependency levels using {} workers", tasks.size(), levels.size(), workers);
+
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        Map<String, Throwable> failed = new ConcurrentHashMap<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, Math.max(tasks.size(), 1)))) {
+            // levels are in order, so the futures of the parents always exist when a child is scheduled.
+            for (List<ShapeTask> level : levels) {
+                for (ShapeTask task : level) {
+                    CompletableFuture<?>[] parents = task.parents.stream()
+                            .map(futures::get)
+                            .filter(Objects::nonNull)
+                            .toArray(CompletableFuture[]::new);
+
+                    CompletableFuture<Void> future = CompletableFuture.allOf(parents).thenRunAsync(() -> {
+                        try {
+                            action.accept(task);
+                        } catch (RuntimeException e) {
+                            failed.put(task.shape, e);
+                            throw e;
+                        }
+                    }, executor);
+                    futures.put(task.shape, future);
+                }
+            }
+            futures.values().forEach(f -> f.handle((v, e) -> null).join());
+        }
+
+        List<String> published = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        futures.forEach((shape, future) -> {
+            if (failed.containsKey(shape)) {
+                failures.put(shape, failed.get(shape));
+            } else if (future.isCompletedExceptionally()) {
+                skipped.add(shape);
+            } else {
+                published.add(shape);
+            }
+        });
+        return new PublishResult(published, failures, skipped);
+    }
+
+    /**
+     * Groups the tasks by dependency level: level 0 contains the tasks without parents in the given list,
+     * level n the tasks whose deepest parent is in level n-1. Parents not present in the list are expected
+     * to exist already on the FDP and are ignored.
+     *
+     * @throws IllegalArgumentException when the parent relation contains a cycle.
+     */
+    public static List<List<ShapeTask>> levels(List<ShapeTask> tasks) {
+        Map<String, ShapeTask> byName = new LinkedHashMap<>();
+        tasks.forEach(t -> byName.put(t.shape, t));
+
+        Map<String, Integer> depth = new HashMap<>();
+        for (ShapeTask task : tasks) {
+            depth(task, byName, depth, new HashSet<>());
+        }
+
+        List<List<ShapeTask>> levels = new ArrayList<>();
+        for (ShapeTask task : tasks) {
+            int level = depth.get(task.shape);
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(task);
+        }
+        return levels;
+    }
+
+    private static int depth(ShapeTask task, Map<String, ShapeTask> byName, Map<String, Integer> depth, Set<String> visiting) {
+        Integer known = depth.get(task.shape);
+        if (known != null) {
+            return known;
+        }
+        if (!visiting.add(task.shape)) {
+            throw new IllegalArgumentException("Cyclic parent relation found for schema " + task.shape);
+        }
+
+        int level = 0;
+        for (String parent : task.parents) {
+            ShapeTask parentTask = byName.get(parent);
+            if (parentTask != null) {
+                level = Math.max(level, depth(parentTask, byName, depth, visiting) + 1);
+            }
+        }
+        visiting.remove(task.shape);
+        depth.put(task.shape, level);
+        return level;
+    }
+}
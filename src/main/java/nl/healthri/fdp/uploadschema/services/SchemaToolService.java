@@ -1,8 +1,8 @@
 package nl.healthri.fdp.uploadschema.services;
 
 import nl.healthri.fdp.uploadschema.config.fdp.Properties;
-import nl.healthri.fdp.uploadschema.domain.ResourceTask;
 import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
 import nl.healthri.fdp.uploadschema.utils.FileHandler;
 import nl.healthri.fdp.uploadschema.utils.RdfUtils;
 import nl.healthri.fdp.uploadschema.utils.XlsToRdfUtils;
@@ -13,10 +13,16 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import static java.util.function.Predicate.not;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SchemaToolService implements SchemaToolServiceInterface {
     public FdpServiceInterface fdpService;
@@ -24,42 +30,120 @@ public class SchemaToolService implements SchemaToolServiceInterface {
     public ShapeTaskServiceInterface shapeTaskService;
     public Properties properties;
     public FileHandler fileHandler;
+    public SchemaPublishScheduler publishScheduler;
+    public boolean twoPhasePublish;
+    public ResourceSyncService resourceSyncService;
 
     private static final Logger logger = LoggerFactory.getLogger(SchemaToolService.class);
 
     public SchemaToolService(FdpServiceInterface fdpService, ResourceTaskServiceInterface resourceTaskService, ShapeTaskServiceInterface shapeTaskService, Properties properties, FileHandler fileHandler) {
+        this(fdpService, resourceTaskService, shapeTaskService, properties, fileHandler, new SchemaPublishScheduler(1));
+    }
+
+    public SchemaToolService(FdpServiceInterface fdpService, ResourceTaskServiceInterface resourceTaskService, ShapeTaskServiceInterface shapeTaskService, Properties properties, FileHandler fileHandler, SchemaPublishScheduler publishScheduler) {
+        this(fdpService, resourceTaskService, shapeTaskService, properties, fileHandler, publishScheduler, false);
+    }
+
+    /**
+     * @param twoPhasePublish first prepare the drafts of all schemas, and only when all succeeded release them
+     *                        together, instead of releasing every schema right after its draft.
+     */
+    public SchemaToolService(FdpServiceInterface fdpService, ResourceTaskServiceInterface resourceTaskService, ShapeTaskServiceInterface shapeTaskService, Properties properties, FileHandler fileHandler, SchemaPublishScheduler publishScheduler, boolean twoPhasePublish) {
         this.fdpService = fdpService;
         this.resourceTaskService = resourceTaskService;
         this.shapeTaskService = shapeTaskService;
         this.properties = properties;
         this.fileHandler = fileHandler;
+        this.publishScheduler = publishScheduler;
+        this.twoPhasePublish = twoPhasePublish;
+        this.resourceSyncService = new ResourceSyncService(fdpService, resourceTaskService, publishScheduler.workers());
     }
 
     public void createOrUpdateSchemas(boolean force) throws IOException {
         logger.info("Creating/updating schemas from tasks to FDP");
 
         List<ShapeTask> shapeTaskList = shapeTaskService.createTasks();
-        shapeTaskList.forEach(task -> {
-            switch (task.status()) {
-                case INSERT -> {
-                    fdpService.createSchema(task);
-                    fdpService.releaseSchema(task);
-                }
-                case SAME -> {
-                    if (force) {
-                        fdpService.updateSchema(task);
-                        fdpService.releaseSchema(task);
-                        logger.info("Schema {} is updated, it was the same but force was set", task.shape);
-                    } else {
-                        logger.warn("Schema {} is not updated because it's still the same", task.shape);
-                    }
-                }
-                case UPDATE -> {
-                    fdpService.updateSchema(task);
-                    fdpService.releaseSchema(task);
-                }
+        if (twoPhasePublish) {
+            publishTwoPhase(shapeTaskList, force);
+            return;
+        }
+
+        SchemaPublishScheduler.PublishResult result = publishScheduler.publish(shapeTaskList, task -> {
+            if (prepareDraft(task, force)) {
+                fdpService.releaseSchema(task);
+            }
+        });
+        checkPublished(result, "published");
+    }
+
+    // Users of the FDP only see a mix of old and new schema versions during the release burst, not while the drafts are prepared.
+    private void publishTwoPhase(List<ShapeTask> shapeTaskList, boolean force) {
+        Set<String> toRelease = ConcurrentHashMap.newKeySet();
+        SchemaPublishScheduler.PublishResult drafts = publishScheduler.publish(shapeTaskList, task -> {
+            if (prepareDraft(task, force)) {
+                toRelease.add(task.shape);
             }
         });
+        checkPublished(drafts, "prepared, no schema is released");
+
+        List<ShapeTask> releases = shapeTaskList.stream().filter(task -> toRelease.contains(task.shape)).toList();
+        logger.info("All drafts are prepared, releasing {} schemas", releases.size());
+        long start = System.nanoTime();
+        SchemaPublishScheduler.PublishResult released = releaseAll(releases);
+        logger.info("Released {} schemas in {} ms", released.published().size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        checkPublished(released, "released");
+    }
+
+    /**
+     * Releases all schemas at the same time, each on its own virtual thread. The drafts exist and the parents are
+     * resolved, so a release doesn't wait for the release of its parent; the number of requests in flight is bounded
+     * by the concurrency limiter of the FDP client (--max-concurrency).
+     */
+    private SchemaPublishScheduler.PublishResult releaseAll(List<ShapeTask> releases) {
+        Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture.allOf(releases.stream()
+                    .map(task -> CompletableFuture.runAsync(() -> {
+                        try {
+                            fdpService.releaseSchema(task);
+                        } catch (RuntimeException e) {
+                            failed.put(task.shape, e);
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+        List<String> published = releases.stream().map(task -> task.shape).filter(shape -> !failed.containsKey(shape)).toList();
+        return new SchemaPublishScheduler.PublishResult(published, new LinkedHashMap<>(failed), List.of());
+    }
+
+    /**
+     * Creates or updates the draft of the schema.
+     *
+     * @return true when the draft has to be released.
+     */
+    private boolean prepareDraft(ShapeTask task, boolean force) {
+        switch (task.status()) {
+            case INSERT -> fdpService.createSchema(task);
+            case SAME -> {
+                if (!force) {
+                    logger.warn("Schema {} is not updated because it's still the same", task.shape);
+                    return false;
+                }
+                fdpService.updateSchema(task);
+                logger.info("Schema {} is updated, it was the same but force was set", task.shape);
+            }
+            case UPDATE -> fdpService.updateSchema(task);
+        }
+        return true;
+    }
+
+    private static void checkPublished(SchemaPublishScheduler.PublishResult result, String action) {
+        if (!result.isSuccess()) {
+            result.failed().forEach((shape, e) -> logger.error("Schema {} could not be {}: {}", shape, action, e.getMessage()));
+            result.skipped().forEach(shape -> logger.error("Schema {} is skipped because one of its parents could not be {}", shape, action));
+            throw new FdpClientException("Failed to publish schemas: " + result.failed().keySet() + ", skipped: " + result.skipped(),
+                    result.failed().values().stream().findFirst().orElse(null));
+        }
     }
 
     public void convertTemplatesToShaclShapes() throws IOException {
@@ -95,16 +179,9 @@ public class SchemaToolService implements SchemaToolServiceInterface {
     public void addResourceDescriptions() {
         logger.info("Adding resource descriptions from resource tasks to FDP");
 
-        List<ResourceTask> resourceTaskList = this.resourceTaskService.createTasks();
-        resourceTaskList.stream().filter(ResourceTask::isInsert).forEach(this.fdpService::createResource);
-
-        if (resourceTaskList.stream().noneMatch(not(ResourceTask::isInsert))) {
-            logger.warn("Updating resources is not supported yet, but will try to add children if needed)");
-        }
-
-        //add the previous resources as child to parent.
-        List<ResourceTask> resourceTasksParents = resourceTaskService.createParentTasks();
-        resourceTasksParents.stream().filter(ResourceTask::hasChild).forEach(fdpService::updateResource);
+        ResourceSyncService.SyncResult result = resourceSyncService.sync();
+        logger.info("Resources: {} inserted {}, {} updated {}, {} unchanged", result.inserted().size(), result.inserted(),
+                result.updated().size(), result.updated(), result.unchanged().size());
     }
 
 }
@@ -4,7 +4,6 @@ import nl.healthri.fdp.uploadschema.config.fdp.Properties;
 import nl.healthri.fdp.uploadschema.domain.ShapeTask;
 import nl.healthri.fdp.uploadschema.domain.Version;
 import nl.healthri.fdp.uploadschema.domain.enums.ShapeStatus;
-import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
 import nl.healthri.fdp.uploadschema.utils.FileHandler;
 import nl.healthri.fdp.uploadschema.utils.RdfUtils;
 import nl.healthri.fdp.uploadschema.utils.SchemaInfo;
@@ -14,8 +13,6 @@ import org.eclipse.rdf4j.model.util.Models;
 import java.net.URI;
 import java.util.*;
 
-import static nl.healthri.fdp.uploadschema.utils.SchemaInfo.createSchemaInfoMap;
-
 public class ShapeTaskService implements  ShapeTaskServiceInterface {
     public FdpServiceInterface fdpService;
     public FileHandler fileHandler;
@@ -29,8 +26,14 @@ public class ShapeTaskService implements  ShapeTaskServiceInterface {
 
     public List<ShapeTask> createTasks() {
         Map<String, List<URI>> files = this.properties.getFiles();
-        List<SchemaDataResponseDto> schemaDataResponseList = this.fdpService.getAllSchemas();
-        Map<String, SchemaInfo> shapesOnFdp = createSchemaInfoMap(schemaDataResponseList);
+        // all pieces are read up front and concurrently, the schemas share most of them.
+        fileHandler.prefetch(this.properties.getSchemasToPublish().stream()
+                .map(files::get)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .toList());
+        this.fdpService.loadSchemaDefinitions(this.properties.getSchemasToPublish());
+        Map<String, SchemaInfo> shapesOnFdp = this.fdpService.getSchemaInfoMap();
 
         //list of the task we have to do for insert/updating shacls
         return this.properties.getSchemasToPublish().stream().map(schemaTitle -> {
@@ -45,8 +48,10 @@ public class ShapeTaskService implements  ShapeTaskServiceInterface {
                 SchemaInfo matchingFdpSchema = shapesOnFdp.get(schemaTitle);
                 Version version = matchingFdpSchema.version().next(requestedVersion);
                 String uuid = matchingFdpSchema.uuid();
-                Model fdpSchemaModel = RdfUtils.fromTurtleString(matchingFdpSchema.definition());
-                ShapeStatus status  = Models.isomorphic(fdpSchemaModel, newModel) ? ShapeStatus.SAME : ShapeStatus.UPDATE;
+                // a schema with only a draft on the FDP has no definition to compare with.
+                String fdpDefinition = matchingFdpSchema.definition();
+                ShapeStatus status = fdpDefinition != null && Models.isomorphic(RdfUtils.fromTurtleString(fdpDefinition), newModel)
+                        ? ShapeStatus.SAME : ShapeStatus.UPDATE;
 
                 return new ShapeTask(
                         schemaTitle,
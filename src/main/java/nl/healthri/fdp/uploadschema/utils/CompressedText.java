@@ -0,0 +1,82 @@
+package nl.healthri.fdp.uploadschema.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compressed UTF-8 text. Used to keep (large) schema definitions in memory in a compact form until they
+ * are actually needed, Turtle compresses roughly ten times.
+ */
+public final class CompressedText {
+    private final byte[] compressed;
+    private final int length;
+
+    private CompressedText(byte[] compressed, int length) {
+        this.compressed = compressed;
+        this.length = length;
+    }
+
+    public static CompressedText of(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 8));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return new CompressedText(out.toByteArray(), bytes.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return the decompressed text, every call decompresses again so don't hold on to the result longer than needed.
+     */
+    public String text() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                offset += inflater.inflate(bytes, offset, length - offset);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public int compressedSize() {
+        return compressed.length;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompressedText other && length == other.length && Arrays.equals(compressed, other.compressed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(compressed);
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedText[" + length + " bytes, " + compressed.length + " compressed]";
+    }
+}
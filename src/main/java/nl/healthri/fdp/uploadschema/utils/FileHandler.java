@@ -1,5 +1,7 @@
 package nl.healthri.fdp.uploadschema.utils;
 
+import nl.healthri.fdp.uploadschema.integrations.HttpTransport;
+import nl.healthri.fdp.uploadschema.integrations.metrics.CountingInputStream;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.model.Namespace;
@@ -12,15 +14,29 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 //this class handles RDF-File loading and saving this class should be
@@ -29,8 +45,130 @@ import java.util.stream.Collectors;
 public class FileHandler {
     private static final Logger logger = LoggerFactory.getLogger(FileHandler.class);
 
+    private final HttpTransport transport;
+    private final RemoteFileCache fileCache;
+    // every file is parsed once per run, the schemas using it share the (unmodifiable) model.
+    private final Map<URI, CompletableFuture<Model>> pieces = new ConcurrentHashMap<>();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final long mmapThreshold;
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final AtomicLong mapped = new AtomicLong();
+
+    /**
+     * @param transport shared HTTP client, remote files are fetched over the same connections as the FDP requests.
+     */
+    public FileHandler(HttpTransport transport) {
+        this(transport, null);
+    }
+
+    /**
+     * @param transport shared HTTP client, remote files are fetched over the same connections as the FDP requests.
+     * @param fileCache keeps remote files between runs, or null to download them every run.
+     */
+    public FileHandler(HttpTransport transport, RemoteFileCache fileCache) {
+        this(transport, fileCache, DEFAULT_MMAP_THRESHOLD);
+    }
+
+    /**
+     * @param mmapThreshold local files of at least this many bytes are memory-mapped instead of read through a buffer.
+     */
+    public FileHandler(HttpTransport transport, RemoteFileCache fileCache, long mmapThreshold) {
+        this.transport = transport;
+        this.fileCache = fileCache;
+        this.mmapThreshold = mmapThreshold;
+    }
+
+    public static final int DEFAULT_PREFETCH_PARALLELISM = 8;
+    public static final long DEFAULT_MMAP_THRESHOLD = 16L * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param downloads remote files requested from the remote host, including conditional requests answered with a 304.
+     * @param parsed    files parsed, at most once per file per run.
+     * @param reused    file references served from the model of an earlier read of the same file.
+     */
+    public record Stats(long downloads, long parsed, long reused) {
+    }
+
+    public Stats stats() {
+        return new Stats(downloads.get(), parsed.get(), reused.get());
+    }
+
+    /**
+     * @param bytes      bytes read by the parser.
+     * @param statements statements parsed.
+     * @param time       time spent reading and parsing, summed over the files (files read in parallel overlap).
+     * @param mapped     local files that were memory-mapped.
+     */
+    public record Throughput(long bytes, long statements, Duration time, long mapped) {
+        public double bytesPerSecond() {
+            return perSecond(bytes);
+        }
+
+        public double statementsPerSecond() {
+            return perSecond(statements);
+        }
+
+        private double perSecond(long count) {
+            return time.isZero() ? 0 : count * 1_000_000_000.0 / time.toNanos();
+        }
+    }
+
+    public Throughput throughput() {
+        return new Throughput(bytesRead.sum(), statements.sum(), Duration.ofNanos(parseNanos.sum()), mapped.get());
+    }
+
+    /**
+     * Reads and parses the files concurrently, so the schemas are assembled without waiting for them one by one.
+     * The total time is about that of the slowest file instead of the sum of all files.
+     */
+    public void prefetch(Collection<URI> uris) {
+        prefetch(uris, DEFAULT_PREFETCH_PARALLELISM);
+    }
+
+    /**
+     * @param parallelism maximum number of files read at the same time.
+     */
+    public void prefetch(Collection<URI> uris, int parallelism) {
+        List<URI> unique = uris.stream().distinct().filter(uri -> !pieces.containsKey(uri)).toList();
+        if (unique.isEmpty()) {
+            return;
+        }
+        Map<URI, Exception> failed = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        // Platform threads: the parser reads the download under a lock (PushbackReader), on a virtual thread that
+        // would pin the carrier thread while waiting for the network.
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, unique.size()))) {
+            for (URI uri : unique) {
+                executor.execute(() -> {
+                    try {
+                        readPiece(uri);
+                    } catch (IOException | RuntimeException e) {
+                        failed.put(uri, e);
+                    }
+                });
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            failed.forEach((uri, e) -> logger.error("Failed to read {}: {}", uri, e.getMessage()));
+            String fileList = failed.keySet().stream()
+                    .map(URI::toString)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            throw new RuntimeException("Failed to read files: " + fileList, failed.values().iterator().next());
+        }
+        logger.info("Read {} files in {} ms", unique.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
     public void safeModel(Path p, Model m) throws IOException {
-        saveModelToStream(Files.newOutputStream(p), m);
+        try (OutputStream out = Files.newOutputStream(p)) {
+            saveModelToStream(out, m);
+        }
     }
 
     private void saveModelToStream(OutputStream out, Model m) {
@@ -47,16 +185,20 @@ public class FileHandler {
     }
 
 
+    /**
+     * @return an unmodifiable model with the statements and namespaces of all files, later files override the prefixes
+     * of earlier ones. Each file is parsed once per run, also when it is used by several schemas; the returned model
+     * is a view over the parsed files (or the parsed file itself), the statements are not copied per schema.
+     */
     public Model readFiles(List<URI> files){
         logger.info("reading and parsing Shacl from {}", files.getFirst().toString());
 
         try {
-            RDFParser rdfParser = Rio.createParser(RDFFormat.TURTLE);
-            Model model = new LinkedHashModel();
-            rdfParser.setRDFHandler(new StatementCollector(model));
+            List<Model> models = new ArrayList<>(files.size());
             for (URI u : files) {
-                readFile(u, rdfParser);
+                models.add(readPiece(u));
             }
+            Model model = models.size() == 1 ? models.getFirst() : new UnionModel(models);
             validateNamespaces(model);
             return model;
         } catch (IOException e) {
@@ -67,11 +209,32 @@ public class FileHandler {
         }
     }
 
+    private Model readPiece(URI uri) throws IOException {
+        return once(pieces, uri, reused, () -> {
+            Model piece = readFile(uri);
+            parsed.incrementAndGet();
+            return piece.unmodifiable();
+        });
+    }
 
-    private void readFile(URI uri, RDFParser parser) throws IOException {
-        try {
-            InputStream fis = getInputStream(uri);
-            parser.parse(fis);
+    // Turtle is always UTF-8, remote files are parsed while they are downloaded.
+    private Model readFile(URI uri) throws IOException {
+        long start = System.nanoTime();
+        LongAdder fileBytes = new LongAdder();
+        try (Reader reader = new InputStreamReader(new CountingInputStream(getInputStream(uri), fileBytes), StandardCharsets.UTF_8)) {
+            RDFParser parser = Rio.createParser(RDFFormat.TURTLE);
+            Model model = new LinkedHashModel();
+            parser.setRDFHandler(new StatementCollector(model));
+            parser.parse(reader);
+
+            long nanos = System.nanoTime() - start;
+            bytesRead.add(fileBytes.sum());
+            statements.add(model.size());
+            parseNanos.add(nanos);
+            Throughput file = new Throughput(fileBytes.sum(), model.size(), Duration.ofNanos(nanos), 0);
+            logger.debug("Parsed {}: {} bytes, {} statements in {} ms ({} MB/s, {} statements/s)", uri, file.bytes(), file.statements(),
+                    file.time().toMillis(), Math.round(file.bytesPerSecond() / 1_000_000), Math.round(file.statementsPerSecond()));
+            return model;
         } catch (IOException e) {
             throw new IOException("Error while reading file: " + uri, e);
         } catch (RDFParseException e) {
@@ -82,28 +245,147 @@ public class FileHandler {
     }
 
     private InputStream getInputStream(URI uri) throws IOException {
-        if (List.of("http", "https").contains(uri.getScheme().toLowerCase())) {
-            logger.trace("Fetch from github: {}", uri);
-            try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).followRedirects(HttpClient.Redirect.NORMAL).build()) {
-                HttpRequest request = HttpRequest.newBuilder().uri(uri).GET().build();
-
-                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-                if (response.statusCode() / 100 == 2) {
-                    return new ByteArrayInputStream(response.body().getBytes());
-                } else {
-                    throw new IOException("Failed to fetch file: " + response.statusCode());
-                }
-            } catch (IOException e) {
-                logger.error("Failed to get input stream: {}", e.getMessage());
-                throw new RuntimeException(e);
-            } catch (InterruptedException e){
-                logger.error("Thread was interrupted while getting input stream: {}", e.getMessage());
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(e);
+        if (!isRemote(uri)) {
+            return openLocalFile(Paths.get(uri));
+        }
+        // the cache needs the complete content to store it.
+        return fileCache == null ? streamRemoteFile(uri) : new ByteArrayInputStream(fetchRemoteFile(uri));
+    }
+
+    // Large files (the controlled vocabularies) are memory-mapped, others are read from the channel through a buffer.
+    private InputStream openLocalFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= mmapThreshold && size <= Integer.MAX_VALUE) {
+                mapped.incrementAndGet();
+                // the mapping stays valid after the channel is closed.
+                return new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+        return new BufferedInputStream(Files.newInputStream(path), READ_BUFFER_SIZE);
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static boolean isRemote(URI uri) {
+        return List.of("http", "https").contains(uri.getScheme().toLowerCase());
+    }
+
+    private interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    // The first caller loads the value, later callers in this run (also concurrent ones) share that result.
+    private static <T> T once(Map<URI, CompletableFuture<T>> store, URI uri, AtomicLong hits, Loader<T> loader) throws IOException {
+        CompletableFuture<T> load = new CompletableFuture<>();
+        CompletableFuture<T> existing = store.putIfAbsent(uri, load);
+        if (existing != null) {
+            if (hits != null) {
+                hits.incrementAndGet();
             }
-        } else {
-            return new FileInputStream(Paths.get(uri).toFile());
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new IOException("Failed to read file: " + uri, e.getCause());
+            }
+        }
+        try {
+            load.complete(loader.load());
+        } catch (IOException | RuntimeException e) {
+            // not kept, a later read tries again.
+            store.remove(uri, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+        return load.join();
+    }
+
+    private InputStream streamRemoteFile(URI uri) throws IOException {
+        logger.trace("Fetch from github: {}", uri);
+        HttpRequest request = transport.newRequest(uri).GET().build();
+        try {
+            downloads.incrementAndGet();
+            HttpResponse<InputStream> response = transport.client().send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() / 100 == 2) {
+                return response.body();
+            }
+            response.body().close();
+            throw new IOException("Failed to fetch file: " + response.statusCode());
+        } catch (IOException e) {
+            logger.error("Failed to get input stream: {}", e.getMessage());
+            throw e;
+        } catch (InterruptedException e) {
+            logger.error("Thread was interrupted while getting input stream: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Only used with a file cache, without one the file is streamed by streamRemoteFile.
+    private byte[] fetchRemoteFile(URI uri) throws IOException {
+        if (fileCache.isOffline()) {
+            return fileCache.readOffline(uri);
+        }
+        Optional<RemoteFileCache.Entry> cached = fileCache.lookup(uri);
+        logger.trace("Fetch from github: {}", uri);
+        HttpRequest.Builder builder = transport.newRequest(uri).GET();
+        cached.ifPresent(entry -> fileCache.addValidators(builder, entry));
+
+        IOException failure;
+        try {
+            downloads.incrementAndGet();
+            HttpResponse<byte[]> response = transport.client().send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 304 && cached.isPresent()) {
+                return fileCache.revalidated(cached.get());
+            }
+            if (response.statusCode() / 100 == 2) {
+                fileCache.store(uri, response.headers(), response.body());
+                return response.body();
+            }
+            failure = new IOException("Failed to fetch file: " + response.statusCode());
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            logger.error("Thread was interrupted while getting input stream: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        // GitHub unreachable or rate limited, the last downloaded version is better than failing the run.
+        if (cached.isPresent()) {
+            return fileCache.readStale(cached.get(), failure);
         }
+        logger.error("Failed to get input stream: {}", failure.getMessage());
+        throw failure;
     }
 
     private void validateNamespaces(Model model) {
@@ -1,4 +1,6 @@
 package nl.healthri.fdp.uploadschema.utils;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpHttpStatusException;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpUnauthorizedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
@@ -9,7 +11,7 @@ import java.net.http.HttpResponse;
 public class HttpRequestUtils {
     private static final Logger logger = LoggerFactory.getLogger(HttpRequestUtils.class);
 
-    public static void handleResponseStatus(HttpResponse<String> response) throws IOException {
+    public static void handleResponseStatus(HttpResponse<?> response) throws IOException {
         String method = response.request().method();
         int statusCode = response.statusCode();
         URI uri = response.uri();
@@ -17,10 +19,12 @@ public class HttpRequestUtils {
         switch (statusCode) {
             case 200 -> logger.info("[" + statusCode + "]" + " successfull request: " + method + " " + uri);
             case 400 -> throw new IllegalArgumentException("[" + statusCode + "]" + " bad request: " + method + " " + uri);
-            case 401 -> throw new SecurityException("[" + statusCode + "]" + "Unauthorized: " + method + " "  + uri);
+            case 401 -> throw new FdpUnauthorizedException("[" + statusCode + "]" + "Unauthorized: " + method + " "  + uri);
             case 403 -> throw new SecurityException("[" + statusCode + "]" + "Forbidden: " + method + " "  + uri);
-            case 404 -> throw new IOException("[" + statusCode + "]" + "Resource Not Found: " + method + " "  + uri);
-            case 500 -> throw new IOException("[" + statusCode + "]" + "Internal Server Error: " + method + " "  + uri);
+            case 404 -> throw new FdpHttpStatusException(statusCode, "[" + statusCode + "]" + "Resource Not Found: " + method + " "  + uri);
+            case 429 -> throw new FdpHttpStatusException(statusCode, "[" + statusCode + "]" + "Too Many Requests: " + method + " "  + uri);
+            case 500 -> throw new FdpHttpStatusException(statusCode, "[" + statusCode + "]" + "Internal Server Error: " + method + " "  + uri);
+            case 502, 503, 504 -> throw new FdpHttpStatusException(statusCode, "[" + statusCode + "]" + "FDP unavailable: " + method + " "  + uri);
             default -> throw new RuntimeException("[" + statusCode + "]" + "Unexpected HTTP status: " + method + " "  + uri);
         }
     }
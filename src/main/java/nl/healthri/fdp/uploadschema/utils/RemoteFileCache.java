@@ -0,0 +1,191 @@
+package nl.healthri.fdp.uploadschema.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache for the remote shape files (the pieces on GitHub), kept between runs. Every URI has an index entry
+ * with the ETag, Last-Modified and SHA-256 of its content, the content itself is stored once per hash, so pieces
+ * with the same content share a file. Entries are revalidated with a conditional request, in offline mode they are
+ * used without any request.
+ */
+public class RemoteFileCache {
+    private final Path index;
+    private final Path objects;
+    private final boolean offline;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong servedOffline = new AtomicLong();
+    private final AtomicLong servedStale = new AtomicLong();
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteFileCache.class);
+
+    /**
+     * @param root    the cache directory.
+     * @param offline only serve files from the cache, never contact the remote host.
+     */
+    public RemoteFileCache(Path root, boolean offline) {
+        this.index = root.resolve("index");
+        this.objects = root.resolve("objects");
+        this.offline = offline;
+        try {
+            Files.createDirectories(index);
+            Files.createDirectories(objects);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't create file cache directory " + root, e);
+        }
+    }
+
+    /**
+     * @param sha256       hash of the content, also the name of the file the content is stored in.
+     * @param etag         ETag of the stored response, or null.
+     * @param lastModified Last-Modified of the stored response, or null.
+     * @param storedAt     moment the content was downloaded, in epoch milliseconds.
+     */
+    public record Entry(URI uri, String sha256, String etag, String lastModified, long storedAt) {
+    }
+
+    /**
+     * @param revalidated files confirmed unchanged by the remote host with a 304.
+     * @param stored      files downloaded and (re)written to the cache.
+     * @param offline     files used without a request in offline mode.
+     * @param stale       files used because the remote host couldn't be reached or refused the request.
+     */
+    public record Stats(long revalidated, long stored, long offline, long stale) {
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    public Optional<Entry> lookup(URI uri) {
+        Path meta = indexFile(uri);
+        if (!Files.exists(meta)) {
+            return Optional.empty();
+        }
+        try {
+            Entry entry = objectMapper.readValue(meta.toFile(), Entry.class);
+            return Files.exists(objectFile(entry.sha256())) ? Optional.of(entry) : Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable file cache entry {}: {}", meta, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public HttpRequest.Builder addValidators(HttpRequest.Builder builder, Entry entry) {
+        if (entry.etag() != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, entry.etag());
+        }
+        if (entry.lastModified() != null) {
+            builder.header(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified());
+        }
+        return builder;
+    }
+
+    /**
+     * @return the cached content, checked against the hash of the entry.
+     */
+    public byte[] read(Entry entry) throws IOException {
+        byte[] content = Files.readAllBytes(objectFile(entry.sha256()));
+        if (!sha256(content).equals(entry.sha256())) {
+            throw new IOException("Cached content of " + entry.uri() + " doesn't match its hash, remove " + objectFile(entry.sha256()));
+        }
+        return content;
+    }
+
+    /**
+     * Called when the remote host answered 304, the stored content is still valid.
+     */
+    public byte[] revalidated(Entry entry) throws IOException {
+        revalidated.incrementAndGet();
+        logger.debug("Using cached {}, not modified", entry.uri());
+        return read(entry);
+    }
+
+    /**
+     * @return the cached content of the uri, without contacting the remote host.
+     */
+    public byte[] readOffline(URI uri) throws IOException {
+        Entry entry = lookup(uri).orElseThrow(() -> new IOException("Offline and not in the file cache: " + uri));
+        servedOffline.incrementAndGet();
+        return read(entry);
+    }
+
+    /**
+     * Called when the remote host couldn't be used, the last downloaded content is used instead.
+     */
+    public byte[] readStale(Entry entry, Exception cause) throws IOException {
+        servedStale.incrementAndGet();
+        logger.warn("Using cached {} from {}, the file couldn't be fetched: {}", entry.uri(),
+                Instant.ofEpochMilli(entry.storedAt()), cause.getMessage());
+        return read(entry);
+    }
+
+    /**
+     * Stores the downloaded content, the content file is only written when no file has the same content yet.
+     */
+    public Entry store(URI uri, java.net.http.HttpHeaders headers, byte[] content) throws IOException {
+        String hash = sha256(content);
+        Entry entry = new Entry(uri, hash,
+                headers.firstValue(HttpHeaders.ETAG).orElse(null),
+                headers.firstValue(HttpHeaders.LAST_MODIFIED).orElse(null),
+                System.currentTimeMillis());
+
+        Path object = objectFile(hash);
+        if (!Files.exists(object)) {
+            writeAtomically(objects, object, content);
+        }
+        writeAtomically(index, indexFile(uri), objectMapper.writeValueAsBytes(entry));
+        stored.incrementAndGet();
+        return entry;
+    }
+
+    public Stats stats() {
+        return new Stats(revalidated.get(), stored.get(), servedOffline.get(), servedStale.get());
+    }
+
+    private Path indexFile(URI uri) {
+        return index.resolve(sha256(uri.toString().getBytes(StandardCharsets.UTF_8)) + ".json");
+    }
+
+    private Path objectFile(String hash) {
+        return objects.resolve(hash);
+    }
+
+    private static void writeAtomically(Path directory, Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package nl.healthri.fdp.uploadschema.utils;
+
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Run-scoped snapshot of the resource definitions on the FDP, indexed by name and UUID. The listing already
+ * contains the children of every resource, so after the listing is fetched (once, on first use) neither
+ * re-listing nor a GET per resource is needed. Inserts and updates of this run are applied to the snapshot.
+ * <p>
+ * The returned definitions are shared, copy them before changing them.
+ */
+public class ResourceCatalog {
+    private final Supplier<List<ResourceResponseDto>> loader;
+    private final Map<String, ResourceResponseDto> byName = new ConcurrentHashMap<>();
+    private final Map<String, ResourceResponseDto> byUuid = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    /**
+     * @param loader fetches the resource listing from the FDP, called once per run.
+     */
+    public ResourceCatalog(Supplier<List<ResourceResponseDto>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param hits   lookups by name or UUID that found an entry in the snapshot.
+     * @param misses lookups by name or UUID that found nothing, the entry doesn't exist on the FDP (yet).
+     * @param loads  number of times the listing was fetched from the FDP.
+     */
+    public record Stats(long hits, long misses, long loads) {
+    }
+
+    public List<ResourceResponseDto> list() {
+        ensureLoaded();
+        return List.copyOf(byUuid.values());
+    }
+
+    public Optional<ResourceResponseDto> get(String name) {
+        ensureLoaded();
+        return counted(Optional.ofNullable(byName.get(name)));
+    }
+
+    public Optional<ResourceResponseDto> getByUuid(String uuid) {
+        ensureLoaded();
+        return counted(Optional.ofNullable(byUuid.get(uuid)));
+    }
+
+    /**
+     * Adds or replaces a resource, used to apply the result of an insert/update without a new listing.
+     */
+    public void put(ResourceResponseDto resource) {
+        ensureLoaded();
+        add(resource);
+    }
+
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), loads.get());
+    }
+
+    private void add(ResourceResponseDto resource) {
+        byName.put(resource.name(), resource);
+        byUuid.put(resource.uuid(), resource);
+    }
+
+    private Optional<ResourceResponseDto> counted(Optional<ResourceResponseDto> result) {
+        (result.isPresent() ? hits : misses).incrementAndGet();
+        return result;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            loads.incrementAndGet();
+            loader.get().forEach(this::add);
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package nl.healthri.fdp.uploadschema.utils;
+
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Run-scoped snapshot of the schemas on the FDP. The schema listing is fetched once, on first use, after that the
+ * snapshot is kept up to date with the results of our own inserts, updates and releases, so resolving a schema
+ * (or a parent UUID) never needs another listing.
+ */
+public class SchemaCatalog {
+    private final Supplier<List<SchemaSummaryDto>> loader;
+    private final Map<String, SchemaInfo> schemas = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    /**
+     * @param loader fetches the schema listing from the FDP, called once per run.
+     */
+    public SchemaCatalog(Supplier<List<SchemaSummaryDto>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param hits   lookups of a schema (or its UUID) by name that found an entry in the snapshot.
+     * @param misses lookups of a schema (or its UUID) by name that found nothing, it doesn't exist on the FDP (yet).
+     * @param loads  number of times the listing was fetched from the FDP.
+     */
+    public record Stats(long hits, long misses, long loads) {
+    }
+
+    /**
+     * @return a read-only live view of the snapshot, keyed by schema name.
+     */
+    public Map<String, SchemaInfo> asMap() {
+        ensureLoaded();
+        return Collections.unmodifiableMap(schemas);
+    }
+
+    public Optional<SchemaInfo> get(String name) {
+        ensureLoaded();
+        return counted(Optional.ofNullable(schemas.get(name)));
+    }
+
+    /**
+     * @return the UUID of the schema with the given name, used to resolve the parents of a schema.
+     */
+    public Optional<String> findUuid(String name) {
+        return get(name).map(SchemaInfo::uuid);
+    }
+
+    /**
+     * Adds or replaces a schema, used to apply the result of an insert/update/release without a new listing.
+     */
+    public void put(String name, SchemaInfo schemaInfo) {
+        ensureLoaded();
+        schemas.put(name, schemaInfo);
+    }
+
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), loads.get());
+    }
+
+    private Optional<SchemaInfo> counted(Optional<SchemaInfo> result) {
+        (result.isPresent() ? hits : misses).incrementAndGet();
+        return result;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            loads.incrementAndGet();
+            schemas.putAll(SchemaInfo.createSchemaInfoMapFromSummaries(loader.get()));
+            loaded = true;
+        }
+    }
+}
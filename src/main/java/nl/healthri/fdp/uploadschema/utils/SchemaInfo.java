@@ -2,12 +2,26 @@ package nl.healthri.fdp.uploadschema.utils;
 
 import nl.healthri.fdp.uploadschema.domain.Version;
 import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public record SchemaInfo(Version version, String uuid, String definition) {
+/**
+ * @param compressedDefinition the definition of the latest version, kept compressed until {@link #definition()}
+ *                             is called, or null when not retained.
+ */
+public record SchemaInfo(Version version, String uuid, CompressedText compressedDefinition) {
+
+    public SchemaInfo(Version version, String uuid, String definition) {
+        this(version, uuid, definition == null ? null : CompressedText.of(definition));
+    }
+
+    public String definition() {
+        return compressedDefinition == null ? null : compressedDefinition.text();
+    }
+
     public static Map<String, SchemaInfo> createSchemaInfoMap(List<SchemaDataResponseDto> schemaDataResponseList) {
         Map<String, SchemaInfo> schemaInfoMap = new HashMap<>();
         for (SchemaDataResponseDto schemaDataResponse : schemaDataResponseList) {
@@ -24,4 +38,19 @@ public record SchemaInfo(Version version, String uuid, String definition) {
 
         return schemaInfoMap;
     }
+
+    public static Map<String, SchemaInfo> createSchemaInfoMapFromSummaries(List<SchemaSummaryDto> schemaSummaryList) {
+        Map<String, SchemaInfo> schemaInfoMap = new HashMap<>();
+        for (SchemaSummaryDto schemaSummary : schemaSummaryList) {
+            SchemaInfo schemaInfo = new SchemaInfo(
+                    new Version(schemaSummary.version()),
+                    schemaSummary.uuid(),
+                    schemaSummary.definition()
+            );
+
+            schemaInfoMap.put(schemaSummary.name(), schemaInfo);
+        }
+
+        return schemaInfoMap;
+    }
 }
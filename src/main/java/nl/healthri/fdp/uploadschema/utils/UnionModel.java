@@ -0,0 +1,151 @@
+package nl.healthri.fdp.uploadschema.utils;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.AbstractModel;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-only view of the union of several models, the statements are not copied. A statement that is in more than one
+ * model is only seen once, in the first model that has it. Namespaces are merged, later models override the prefixes
+ * of earlier ones.
+ * <p>
+ * The view reflects the models it is built on, so they must not change while it is used; the pieces of
+ * {@link FileHandler} are unmodifiable.
+ */
+final class UnionModel extends AbstractModel {
+    private final List<Model> models;
+    private final Set<Namespace> namespaces;
+    private int size = -1;
+
+    UnionModel(List<Model> models) {
+        this(models, mergeNamespaces(models));
+    }
+
+    private UnionModel(List<Model> models, Set<Namespace> namespaces) {
+        this.models = List.copyOf(models);
+        this.namespaces = namespaces;
+    }
+
+    private static Set<Namespace> mergeNamespaces(List<Model> models) {
+        Map<String, Namespace> byPrefix = new LinkedHashMap<>();
+        models.forEach(model -> model.getNamespaces().forEach(ns -> byPrefix.put(ns.getPrefix(), ns)));
+        return Collections.unmodifiableSet(new LinkedHashSet<>(byPrefix.values()));
+    }
+
+    @Override
+    public Set<Namespace> getNamespaces() {
+        return namespaces;
+    }
+
+    @Override
+    public Model unmodifiable() {
+        return this;
+    }
+
+    @Override
+    public boolean contains(Resource subj, IRI pred, Value obj, Resource... contexts) {
+        return models.stream().anyMatch(model -> model.contains(subj, pred, obj, contexts));
+    }
+
+    @Override
+    public Model filter(Resource subj, IRI pred, Value obj, Resource... contexts) {
+        return new UnionModel(models.stream().map(model -> model.filter(subj, pred, obj, contexts)).toList(), namespaces);
+    }
+
+    @Override
+    public int size() {
+        // the models don't change, so the size is counted once, on first use.
+        if (size < 0) {
+            int count = 0;
+            for (Iterator<Statement> it = iterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<Statement> iterator() {
+        return new Iterator<>() {
+            private int index;
+            private Iterator<Statement> current = models.isEmpty() ? Collections.emptyIterator() : models.getFirst().iterator();
+            private Statement next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    while (!current.hasNext()) {
+                        if (++index >= models.size()) {
+                            return false;
+                        }
+                        current = models.get(index).iterator();
+                    }
+                    Statement candidate = current.next();
+                    if (!inEarlierModel(candidate, index)) {
+                        next = candidate;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Statement next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Statement result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    private boolean inEarlierModel(Statement st, int index) {
+        for (int i = 0; i < index; i++) {
+            if (models.get(i).contains(st)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void setNamespace(Namespace namespace) {
+        throw new UnsupportedOperationException("Union of the shape files can't be changed");
+    }
+
+    @Override
+    public Optional<Namespace> removeNamespace(String prefix) {
+        throw new UnsupportedOperationException("Union of the shape files can't be changed");
+    }
+
+    @Override
+    public boolean add(Resource subj, IRI pred, Value obj, Resource... contexts) {
+        throw new UnsupportedOperationException("Union of the shape files can't be changed");
+    }
+
+    @Override
+    public boolean remove(Resource subj, IRI pred, Value obj, Resource... contexts) {
+        throw new UnsupportedOperationException("Union of the shape files can't be changed");
+    }
+
+    @Override
+    public void removeTermIteration(Iterator<Statement> iter, Resource subj, IRI pred, Value obj, Resource... contexts) {
+        throw new UnsupportedOperationException("Union of the shape files can't be changed");
+    }
+}
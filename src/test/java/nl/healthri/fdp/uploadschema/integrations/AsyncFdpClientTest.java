@@ -0,0 +1,148 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.metrics.FdpMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncFdpClientTest {
+
+    private HttpServer server;
+    private URI host;
+    private final Queue<String> receivedTokens = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/resource-definitions/", exchange -> {
+            receivedTokens.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            String id = exchange.getRequestURI().getPath().substring("/resource-definitions/".length());
+            byte[] body = ("{\"uuid\":\"" + id + "\",\"name\":\"Dataset\",\"children\":[]}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        host = URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void TokenReplaced_WhenRequestsInFlight_EveryRequestSendsACompleteToken() {
+        // Arrange
+        try (HttpTransport transport = new HttpTransport(HttpTransport.Config.defaults())) {
+            AsyncFdpClient client = new AsyncFdpClient(transport, host, new ObjectMapper(), null, new FdpMetrics(host));
+            client.setAuthToken(new LoginResponseDto("first"));
+
+            // Act
+            List<CompletableFuture<ResourceResponseDto>> requests = IntStream.range(0, 50)
+                    .mapToObj(i -> {
+                        client.setAuthToken(new LoginResponseDto(i % 2 == 0 ? "first" : "second"));
+                        return client.fetchResource("r" + i);
+                    })
+                    .toList();
+            List<ResourceResponseDto> responses = requests.stream().map(CompletableFuture::join).toList();
+
+            // Assert
+            assertEquals("r49", responses.get(49).uuid());
+            assertEquals(50, receivedTokens.size());
+            assertTrue(Set.of("Bearer first", "Bearer second").containsAll(receivedTokens));
+        }
+    }
+
+    @Test
+    void NoLogin_WhenAuthenticatedRequestIsMade_FutureFailsWithIllegalState() {
+        // Arrange
+        try (HttpTransport transport = new HttpTransport(HttpTransport.Config.defaults())) {
+            AsyncFdpClient client = new AsyncFdpClient(transport, host, new ObjectMapper(), null, new FdpMetrics(host));
+
+            // Act
+            CompletableFuture<ResourceResponseDto> request = client.fetchResource("r1");
+
+            // Assert
+            assertFalse(client.session().isAuthenticated());
+            CompletionException thrown = assertThrows(CompletionException.class, request::join);
+            assertInstanceOf(IllegalStateException.class, thrown.getCause());
+            assertTrue(receivedTokens.isEmpty());
+        }
+    }
+
+    @Test
+    void Session_WhenTokenIsSet_IsReplacedAndKeepsTokenOutOfToString() {
+        // Arrange
+        FdpSession anonymous = FdpSession.anonymous(host);
+
+        // Act
+        FdpSession authenticated = anonymous.withToken(new LoginResponseDto("secret"));
+
+        // Assert
+        assertNull(anonymous.authorization());
+        assertEquals("Bearer secret", authenticated.authorization());
+        assertEquals(host.resolve("/settings"), authenticated.resolve("/settings"));
+        assertFalse(authenticated.toString().contains("secret"));
+    }
+
+    @Test
+    void FixedPoolOfOneThread_WhenTwoBodiesAreReadAtTheSameTime_BothRequestsComplete() throws Exception {
+        // Arrange
+        server.createContext("/resource-definitions/slow", exchange -> {
+            byte[] body = ("{\"uuid\":\"slow\",\"name\":\"Dataset\",\"children\":[]}" + " ".repeat(64 * 1024)).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            // the second half arrives later, so the mapping thread has to wait for the client to deliver it.
+            exchange.getResponseBody().write(body, 0, body.length / 2);
+            exchange.getResponseBody().flush();
+            sleepQuietly(200);
+            exchange.getResponseBody().write(body, body.length / 2, body.length - body.length / 2);
+            exchange.close();
+        });
+        HttpTransport.Config config = new HttpTransport.Config(HttpClient.Version.HTTP_1_1, Duration.ofSeconds(5), Duration.ofSeconds(5),
+                HttpTransport.ExecutorType.FIXED, 1, false);
+        try (HttpTransport transport = new HttpTransport(config)) {
+            AsyncFdpClient client = new AsyncFdpClient(transport, host, new ObjectMapper(), null, new FdpMetrics(host));
+            client.setAuthToken(new LoginResponseDto("token"));
+
+            // Act
+            CompletableFuture<ResourceResponseDto> first = client.fetchResource("slow");
+            CompletableFuture<ResourceResponseDto> second = client.fetchResource("slow");
+
+            // Assert
+            assertEquals("slow", first.get(10, TimeUnit.SECONDS).uuid());
+            assertEquals("slow", second.get(10, TimeUnit.SECONDS).uuid());
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
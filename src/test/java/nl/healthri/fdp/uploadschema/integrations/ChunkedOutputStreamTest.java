@@ -0,0 +1,125 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedOutputStreamTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedOutputStreamTest.class);
+
+    private static UpdateSchemaRequestDto schemaRequest(int definitionSize) {
+        String line = "ex:Shape a sh:NodeShape ; sh:targetClass dcat:Dataset ; sh:property [ sh:path dct:title ] .\n";
+        String definition = line.repeat(definitionSize / line.length() + 1);
+        return new UpdateSchemaRequestDto("Dataset", "Dataset", false, definition, Set.of(), "Dataset", "dataset");
+    }
+
+    // Reads what the HttpClient would send.
+    private static byte[] read(HttpRequest.BodyPublisher publisher) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                out.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.get();
+        return out.toByteArray();
+    }
+
+    @Test
+    void LargeSchemaRequest_WhenStreamedIntoChunks_PublishesSameJsonWithContentLength() throws Exception {
+        // Arrange
+        UpdateSchemaRequestDto request = schemaRequest(100_000);
+        byte[] expected = objectMapper.writeValueAsBytes(request);
+
+        // Act
+        HttpRequest.BodyPublisher publisher = new HttpCompression(false).encode(HttpRequest.newBuilder(), out -> objectMapper.writeValue(out, request));
+
+        // Assert
+        assertEquals(expected.length, publisher.contentLength());
+        assertArrayEquals(expected, read(publisher));
+        // a second subscription (redirect or retry) sends the same body again
+        assertArrayEquals(expected, read(publisher));
+    }
+
+    @Test
+    void SmallBody_WhenGzipEnabled_IsSentUncompressed() throws Exception {
+        // Arrange
+        HttpRequest.Builder builder = HttpRequest.newBuilder();
+
+        // Act
+        HttpRequest.BodyPublisher publisher = new HttpCompression(true).encode(builder, out -> out.write("{}".getBytes()));
+
+        // Assert
+        assertArrayEquals("{}".getBytes(), read(publisher));
+        assertTrue(builder.uri(URI.create("http://localhost")).build().headers().firstValue("Content-Encoding").isEmpty());
+    }
+
+    /**
+     * Allocation benchmark, not part of the default test run (mvn test -Pbenchmark): bytes allocated by the current
+     * thread to create the body of a 4 MB schema upload, the previous writeValueAsString + BodyPublishers.ofString
+     * against streaming into chunks. The numbers depend on the JVM, so they are logged and not asserted.
+     */
+    @Test
+    @Tag("benchmark")
+    void LargeSchemaRequest_WhenStreamed_AllocationIsLogged() throws IOException {
+        // Arrange
+        UpdateSchemaRequestDto request = schemaRequest(4 * 1024 * 1024);
+        HttpCompression compression = new HttpCompression(false);
+        // warm up, so class loading and Jackson's buffer recycling are not measured.
+        HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request));
+        compression.encode(HttpRequest.newBuilder(), out -> objectMapper.writeValue(out, request));
+
+        // Act
+        long before = allocatedBytes();
+        HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request));
+        long stringSerialization = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        compression.encode(HttpRequest.newBuilder(), out -> objectMapper.writeValue(out, request));
+        long streamed = allocatedBytes() - before;
+
+        // Assert
+        logger.info("Body of {} bytes: writeValueAsString+ofString allocated {} bytes, streamed into chunks {} bytes",
+                request.definition().length(), stringSerialization, streamed);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,153 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.domain.Version;
+import nl.healthri.fdp.uploadschema.domain.enums.ShapeStatus;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.integrations.metrics.FdpMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpCompressionTest {
+
+    private static final String RESOURCE = """
+            {"uuid":"1","name":"Dataset","urlPrefix":"dataset","metadataSchemaUuids":[],"targetClassUris":[],"children":[],"externalLinks":[]}""";
+
+    private HttpServer server;
+    private URI host;
+    private volatile String receivedEncoding;
+    private volatile String receivedBody;
+    private volatile String receivedAcceptEncoding;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/metadata-schemas", exchange -> {
+            receivedEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            InputStream body = exchange.getRequestBody();
+            if ("gzip".equals(receivedEncoding)) {
+                body = new GZIPInputStream(body);
+            }
+            receivedBody = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            // empty body, like the FDP answers a draft update
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/resource-definitions", exchange -> {
+            receivedAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            String listing = "[" + String.join(",", Collections.nCopies(50, RESOURCE)) + "]";
+            byte[] body = gzip(listing.getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        host = URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private AsyncFdpClient client(HttpTransport transport) {
+        AsyncFdpClient asyncClient = new AsyncFdpClient(transport, host, new ObjectMapper(), null, new FdpMetrics(host));
+        asyncClient.setAuthToken(new LoginResponseDto("token"));
+        return asyncClient;
+    }
+
+    private static HttpTransport transport(boolean gzipRequests) {
+        return new HttpTransport(new HttpTransport.Config(HttpClient.Version.HTTP_1_1, Duration.ofSeconds(5), Duration.ofSeconds(5),
+                HttpTransport.ExecutorType.VIRTUAL, 1, gzipRequests));
+    }
+
+    private static UpdateSchemaRequestDto schemaRequest() {
+        String definition = "@prefix sh: <http://www.w3.org/ns/shacl#> .\n".repeat(100);
+        return new UpdateSchemaRequestDto("Dataset", "Dataset", false, definition, Set.of(), "Dataset", "dataset");
+    }
+
+    @Test
+    void GzipRequestsEnabled_WhenUpdatingSchema_BodyIsSentCompressed() throws Exception {
+        // Arrange
+        ShapeTask task = new ShapeTask("Dataset", new Version("1.0.0"), "uuid-1", Set.of(), "model", ShapeStatus.UPDATE);
+        UpdateSchemaRequestDto request = schemaRequest();
+
+        try (HttpTransport transport = transport(true)) {
+            AsyncFdpClient client = client(transport);
+
+            // Act
+            client.updateSchema(task, request).get();
+
+            // Assert
+            assertEquals("gzip", receivedEncoding);
+            assertEquals(new ObjectMapper().writeValueAsString(request), receivedBody);
+            HttpCompression.Stats stats = client.compression().stats();
+            assertTrue(stats.requestBytesSent() < stats.requestBytes());
+            assertTrue(stats.bytesSaved() > 0);
+        }
+    }
+
+    @Test
+    void GzipRequestsDisabled_WhenUpdatingSchema_BodyIsSentAsIs() throws Exception {
+        // Arrange
+        ShapeTask task = new ShapeTask("Dataset", new Version("1.0.0"), "uuid-1", Set.of(), "model", ShapeStatus.UPDATE);
+        UpdateSchemaRequestDto request = schemaRequest();
+
+        try (HttpTransport transport = transport(false)) {
+            // Act
+            client(transport).updateSchema(task, request).get();
+
+            // Assert
+            assertNull(receivedEncoding);
+            assertEquals(new ObjectMapper().writeValueAsString(request), receivedBody);
+        }
+    }
+
+    @Test
+    void FdpSendsGzip_WhenFetchingResources_ResponseIsDecompressed() throws Exception {
+        try (HttpTransport transport = transport(false)) {
+            AsyncFdpClient client = client(transport);
+
+            // Act
+            List<ResourceResponseDto> resources = client.fetchResources().get();
+
+            // Assert
+            assertEquals("gzip", receivedAcceptEncoding);
+            assertEquals(50, resources.size());
+            assertEquals("Dataset", resources.getFirst().name());
+            HttpCompression.Stats stats = client.compression().stats();
+            assertTrue(stats.responseBytesReceived() < stats.responseBytes());
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,149 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.cache.HttpResponseCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpResponseCacheTest {
+
+    private static final String RESOURCES = """
+            [{"uuid":"1","name":"Dataset","urlPrefix":"dataset","metadataSchemaUuids":[],"targetClassUris":[],"children":[],"externalLinks":[]}]
+            """;
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private URI host;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile boolean sendEtag = true;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/resource-definitions", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (sendEtag && "\"v1\"".equals(ifNoneMatch)) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                if (sendEtag) {
+                    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                }
+                byte[] body = RESOURCES.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        host = URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private FdpClient client(Duration ttl) {
+        HttpResponseCache cache = new HttpResponseCache(cacheDir, host, ttl);
+        AsyncFdpClient asyncClient = new AsyncFdpClient(HttpClient.newHttpClient(), host, new ObjectMapper(), Executors.newVirtualThreadPerTaskExecutor(), cache);
+        FdpClient client = new FdpClient(asyncClient);
+        client.setAuthToken(new LoginResponseDto("token"));
+        return client;
+    }
+
+    @Test
+    void FdpSendsEtag_WhenFetchingTwiceInSeparateRuns_SecondRequestIsNotModified() {
+        // Act
+        List<ResourceResponseDto> first = client(Duration.ZERO).fetchResources();
+        List<ResourceResponseDto> second = client(Duration.ZERO).fetchResources();
+
+        // Assert
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModified.get());
+        assertEquals(first, second);
+        assertEquals("Dataset", second.getFirst().name());
+    }
+
+    @Test
+    void FdpSendsNoValidators_WhenFetchingWithinTtl_NoSecondRequestIsSent() {
+        // Arrange
+        sendEtag = false;
+        FdpClient client = client(Duration.ofMinutes(5));
+
+        // Act
+        client.fetchResources();
+        List<ResourceResponseDto> second = client.fetchResources();
+
+        // Assert
+        assertEquals(1, fullResponses.get());
+        assertEquals("Dataset", second.getFirst().name());
+    }
+
+    @Test
+    void FdpSendsNoValidators_WhenTtlIsZero_ListingIsFetchedAgain() {
+        // Arrange
+        sendEtag = false;
+        FdpClient client = client(Duration.ZERO);
+
+        // Act
+        client.fetchResources();
+        client.fetchResources();
+
+        // Assert
+        assertEquals(2, fullResponses.get());
+    }
+
+    @Test
+    void ChangedListing_WhenStoredAgain_MetaAndBodyBelongToTheSameResponse() throws IOException {
+        // Arrange
+        HttpResponseCache cache = new HttpResponseCache(cacheDir, host, Duration.ZERO);
+        URI uri = URI.create(host + "/resource-definitions");
+        cache.store(uri, headers("\"v1\""), new ByteArrayInputStream("first".getBytes(StandardCharsets.UTF_8)));
+
+        // Act
+        cache.store(uri, headers("\"v2\""), new ByteArrayInputStream("second".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        HttpResponseCache.Entry entry = cache.lookup(uri).orElseThrow();
+        assertEquals("\"v2\"", entry.etag());
+        try (InputStream body = cache.read(entry)) {
+            assertEquals("second", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (var files = Files.list(cacheDir.resolve(uri.getScheme() + "_" + uri.getHost() + "_" + uri.getPort()))) {
+            List<String> bodies = files.map(p -> p.getFileName().toString()).filter(name -> name.endsWith(".body")).toList();
+            assertEquals(1, bodies.size());
+            assertTrue(bodies.getFirst().endsWith("-" + entry.sha256() + ".body"));
+        }
+    }
+
+    private static java.net.http.HttpHeaders headers(String etag) {
+        return java.net.http.HttpHeaders.of(Map.of("ETag", List.of(etag)), (name, value) -> true);
+    }
+}
@@ -0,0 +1,52 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import nl.healthri.fdp.uploadschema.config.fdp.Properties;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportTest {
+
+    @Test
+    void PartialTransportSection_WhenMergedWithDefaults_OnlyOverridesGivenValues() {
+        // Arrange
+        Properties.TransportProperties properties = new Properties.TransportProperties("HTTP_1_1", null, 5L, "fixed", 2, null);
+
+        // Act
+        HttpTransport.Config config = HttpTransport.Config.defaults().with(properties);
+
+        // Assert
+        assertEquals(HttpClient.Version.HTTP_1_1, config.httpVersion());
+        assertEquals(HttpTransport.Config.defaults().connectTimeout(), config.connectTimeout());
+        assertEquals(Duration.ofSeconds(5), config.requestTimeout());
+        assertEquals(HttpTransport.ExecutorType.FIXED, config.executorType());
+        assertEquals(2, config.executorThreads());
+    }
+
+    @Test
+    void VersionNames_WhenParsed_AcceptCommonSpellings() {
+        assertEquals(HttpClient.Version.HTTP_2, HttpTransport.Config.parseVersion("http/2"));
+        assertEquals(HttpClient.Version.HTTP_2, HttpTransport.Config.parseVersion("HTTP_2"));
+        assertEquals(HttpClient.Version.HTTP_1_1, HttpTransport.Config.parseVersion("HTTP/1.1"));
+        assertEquals(HttpClient.Version.HTTP_1_1, HttpTransport.Config.parseVersion("1.1"));
+        assertThrows(IllegalArgumentException.class, () -> HttpTransport.Config.parseVersion("3"));
+    }
+
+    @Test
+    void Transport_WhenCreated_SharesOneClientWithConfiguredVersion() {
+        // Arrange
+        HttpTransport.Config config = new HttpTransport.Config(HttpClient.Version.HTTP_1_1, Duration.ofSeconds(3), Duration.ofSeconds(7), HttpTransport.ExecutorType.FIXED, 1, false);
+
+        // Act
+        try (HttpTransport transport = new HttpTransport(config)) {
+            // Assert
+            assertEquals(HttpClient.Version.HTTP_1_1, transport.client().version());
+            assertEquals(Duration.ofSeconds(3), transport.client().connectTimeout().orElseThrow());
+            assertEquals(Duration.ofSeconds(7), transport.newRequest(URI.create("http://localhost")).GET().build().timeout().orElseThrow());
+        }
+    }
+}
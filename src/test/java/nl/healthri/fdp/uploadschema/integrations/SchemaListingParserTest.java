@@ -0,0 +1,61 @@
+package nl.healthri.fdp.uploadschema.integrations;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaListingParserTest {
+
+    private static final String LISTING = """
+            [
+              {"uuid": "1", "name": "Resource", "latest": {"version": "1.0.0", "definition": "resource shape",
+                "targetClasses": ["a", "b"], "extra": {"nested": [1, 2]}}, "versions": [{"version": "0.9.0"}]},
+              {"latest": {"definition": "dataset shape", "version": "2.0.0"}, "uuid": "2", "name": "Dataset"}
+            ]
+            """;
+
+    private List<SchemaSummaryDto> parse(String json, Predicate<String> retain) throws IOException {
+        SchemaListingParser parser = new SchemaListingParser(new JsonFactory());
+        return parser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), retain);
+    }
+
+    @Test
+    void Listing_WhenParsed_ReadsUuidNameAndLatestVersion() throws IOException {
+        // Act
+        List<SchemaSummaryDto> schemas = parse(LISTING, name -> true);
+
+        // Assert
+        assertEquals(2, schemas.size());
+        assertEquals("1", schemas.get(0).uuid());
+        assertEquals("Resource", schemas.get(0).name());
+        assertEquals("1.0.0", schemas.get(0).version());
+        assertEquals("resource shape", schemas.get(0).definition().text());
+        assertEquals("2.0.0", schemas.get(1).version());
+        assertEquals("dataset shape", schemas.get(1).definition().text());
+    }
+
+    @Test
+    void SchemaNotRetained_WhenParsed_DefinitionIsSkipped() throws IOException {
+        // Act
+        List<SchemaSummaryDto> schemas = parse(LISTING, "Resource"::equals);
+
+        // Assert
+        assertNotNull(schemas.get(0).definition());
+        assertNull(schemas.get(1).definition());
+        assertEquals("Dataset", schemas.get(1).name());
+    }
+
+    @Test
+    void NoArray_WhenParsed_ThrowsIOException() {
+        // Act & Assert
+        assertThrows(IOException.class, () -> parse("{}", name -> true));
+    }
+}
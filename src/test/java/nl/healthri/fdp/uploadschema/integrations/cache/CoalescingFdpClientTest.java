@@ -0,0 +1,137 @@
+package nl.healthri.fdp.uploadschema.integrations.cache;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceRequestDto;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CoalescingFdpClientTest {
+
+    private FdpClientInterface fdpClientMock;
+    private MutableClock clock;
+    private CoalescingFdpClient coalescingClient;
+
+    @BeforeEach
+    void setUp() {
+        fdpClientMock = mock(FdpClientInterface.class);
+        clock = new MutableClock();
+        coalescingClient = new CoalescingFdpClient(fdpClientMock, Duration.ofSeconds(5), clock);
+    }
+
+    @Test
+    void IdenticalReadsInFlight_WhenFetchingResources_SendOneRequest() throws Exception {
+        // Arrange
+        CountDownLatch requestSent = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<ResourceResponseDto> listing = List.of();
+        when(fdpClientMock.fetchResources()).thenAnswer(invocation -> {
+            requestSent.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return listing;
+        });
+
+        // Act
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<List<ResourceResponseDto>> first = CompletableFuture.supplyAsync(coalescingClient::fetchResources, executor);
+            assertTrue(requestSent.await(5, TimeUnit.SECONDS));
+            List<CompletableFuture<List<ResourceResponseDto>>> others = List.of(
+                    CompletableFuture.supplyAsync(coalescingClient::fetchResources, executor),
+                    CompletableFuture.supplyAsync(coalescingClient::fetchResources, executor));
+            while (coalescingClient.stats().joined() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            // Assert
+            assertSame(listing, first.get());
+            for (CompletableFuture<List<ResourceResponseDto>> other : others) {
+                assertSame(listing, other.get());
+            }
+        }
+        verify(fdpClientMock, times(1)).fetchResources();
+        assertEquals(new CoalescingFdpClient.Stats(0, 2, 1), coalescingClient.stats());
+    }
+
+    @Test
+    void ResultWithinTtl_WhenReadAgain_IsReusedUntilExpiredOrWritten() {
+        // Arrange
+        ResourceTask task = new ResourceTask("Dataset", "", "shape-uuid", false);
+        ResourceRequestDto request = new ResourceRequestDto("Dataset", "dataset", null, null, null, null);
+        when(fdpClientMock.fetchResources()).thenReturn(List.of());
+
+        // Act
+        coalescingClient.fetchResources();
+        coalescingClient.fetchResources();
+        clock.now = clock.now.plusSeconds(5);
+        coalescingClient.fetchResources();
+        coalescingClient.insertResource(task, request);
+        coalescingClient.fetchResources();
+
+        // Assert
+        verify(fdpClientMock, times(3)).fetchResources();
+        assertEquals(1, coalescingClient.stats().hits());
+    }
+
+    @Test
+    void WriteToOtherCollection_WhenReadAgain_KeepsResult() {
+        // Arrange
+        when(fdpClientMock.fetchResources()).thenReturn(List.of());
+
+        // Act
+        coalescingClient.fetchResources();
+        coalescingClient.updateSettings(null);
+        coalescingClient.fetchResources();
+
+        // Assert
+        verify(fdpClientMock, times(1)).fetchResources();
+    }
+
+    @Test
+    void FailedRead_WhenReadAgain_IsSentAgain() {
+        // Arrange
+        FdpClientException failure = new FdpClientException("unavailable", null);
+        when(fdpClientMock.getSettings()).thenThrow(failure).thenReturn(null);
+
+        // Act & Assert
+        assertSame(failure, assertThrows(FdpClientException.class, () -> coalescingClient.getSettings()));
+        assertNull(coalescingClient.getSettings());
+        verify(fdpClientMock, times(2)).getSettings();
+    }
+
+    private static class MutableClock extends Clock {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
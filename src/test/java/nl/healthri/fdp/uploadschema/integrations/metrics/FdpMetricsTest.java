@@ -0,0 +1,64 @@
+package nl.healthri.fdp.uploadschema.integrations.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FdpMetricsTest {
+
+    @Test
+    void PathWithUuid_WhenRecorded_IsGroupedByTemplate() throws IOException {
+        // Arrange
+        FdpMetrics metrics = new FdpMetrics(URI.create("https://fdp.example.com/fdp"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("https://fdp.example.com/fdp/metadata-schemas/6a668323-3936-4b53-8380-a4fd2ed082ee/draft"))
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"name\":\"x\"}"))
+                .build();
+
+        // Act
+        FdpMetrics.Call call = metrics.start(request);
+        try (InputStream body = call.count(new ByteArrayInputStream(new byte[100]))) {
+            body.readAllBytes();
+        }
+        call.finish(200);
+        metrics.start(request).failed();
+
+        // Assert
+        List<FdpMetrics.EndpointSnapshot> snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.size());
+        FdpMetrics.EndpointSnapshot endpoint = snapshot.get(0);
+        assertEquals("PUT", endpoint.method());
+        assertEquals("/metadata-schemas/{uuid}/draft", endpoint.endpoint());
+        assertEquals(2, endpoint.calls());
+        assertEquals(Map.of(FdpMetrics.NO_RESPONSE, 1L, 200, 1L), endpoint.statusCounts());
+        assertEquals(24, endpoint.requestBytes());
+        assertEquals(100, endpoint.responseBytes());
+        assertTrue(metrics.summary().contains("/metadata-schemas/{uuid}/draft"));
+    }
+
+    @Test
+    void RecordedLatencies_WhenAskingPercentiles_AreWithinBucketPrecision() {
+        // Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Act
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(Duration.ofMillis(millis));
+        }
+
+        // Assert
+        assertEquals(1000, histogram.count());
+        assertEquals(500, histogram.percentile(50).toMillis(), 500 * 0.07);
+        assertEquals(990, histogram.percentile(99).toMillis(), 990 * 0.07);
+        assertEquals(Duration.ofMillis(1000), histogram.max());
+        assertTrue(histogram.percentile(100).compareTo(histogram.max()) <= 0);
+    }
+}
@@ -0,0 +1,80 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpHttpStatusException;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdLimiterTest {
+
+    @Test
+    void ConcurrentOverloads_WhenSentUnderSameLimit_LowerLimitOnce() {
+        // Arrange
+        AimdLimiter limiter = new AimdLimiter(new AimdLimiter.Config(8, 0.5));
+        AimdLimiter.Permit first = limiter.acquire();
+        AimdLimiter.Permit second = limiter.acquire();
+
+        // Act
+        limiter.release(first, AimdLimiter.Outcome.OVERLOAD);
+        limiter.release(second, AimdLimiter.Outcome.OVERLOAD);
+
+        // Assert
+        assertEquals(4, limiter.currentLimit());
+        assertEquals(1, limiter.stats().decreases());
+    }
+
+    @Test
+    void Successes_AfterOverload_RaiseLimitUpToCeiling() {
+        // Arrange
+        AimdLimiter limiter = new AimdLimiter(new AimdLimiter.Config(4, 0.5));
+        limiter.release(limiter.acquire(), AimdLimiter.Outcome.OVERLOAD);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire(), AimdLimiter.Outcome.SUCCESS);
+        }
+
+        // Assert
+        assertEquals(4, limiter.currentLimit());
+    }
+
+    @Test
+    void OnlyOverloadSignals_WhenRequestFails_LowerTheLimit() {
+        // Arrange
+        FdpClientException serverError = new FdpClientException("failed", new FdpHttpStatusException(500, "Internal Server Error"));
+        FdpClientException unavailable = new FdpClientException("failed", new FdpHttpStatusException(503, "Service Unavailable"));
+        FdpClientException tooMany = new FdpClientException("failed", new FdpHttpStatusException(429, "Too Many Requests"));
+        FdpClientException timeout = new FdpClientException("failed", new HttpTimeoutException("request timed out"));
+
+        // Act & Assert
+        assertFalse(ConcurrencyLimitedFdpClient.isOverload(serverError));
+        assertTrue(ConcurrencyLimitedFdpClient.isOverload(unavailable));
+        assertTrue(ConcurrencyLimitedFdpClient.isOverload(tooMany));
+        assertTrue(ConcurrencyLimitedFdpClient.isOverload(timeout));
+    }
+
+    @Test
+    void LimitReached_WhenAcquiring_WaitsForPermitAndRecordsQueueTime() throws Exception {
+        // Arrange
+        AimdLimiter limiter = new AimdLimiter(new AimdLimiter.Config(1, 0.5));
+        AimdLimiter.Permit held = limiter.acquire();
+
+        // Act
+        CompletableFuture<AimdLimiter.Permit> waiting = CompletableFuture.supplyAsync(limiter::acquire);
+        Thread.sleep(100);
+        boolean acquiredWhileHeld = waiting.isDone();
+        limiter.release(held, AimdLimiter.Outcome.IGNORE);
+        AimdLimiter.Permit permit = waiting.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertFalse(acquiredWhileHeld);
+        assertNotNull(permit);
+        assertEquals(1, limiter.stats().inFlight());
+        assertTrue(limiter.stats().queueMax().toMillis() >= 50);
+    }
+}
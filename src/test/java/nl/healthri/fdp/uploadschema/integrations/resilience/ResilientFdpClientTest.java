@@ -0,0 +1,175 @@
+package nl.healthri.fdp.uploadschema.integrations.resilience;
+
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.domain.Version;
+import nl.healthri.fdp.uploadschema.domain.enums.ShapeStatus;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpHttpStatusException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ResilientFdpClientTest {
+
+    private FdpClientInterface fdpClientMock;
+    private ResilientFdpClient resilientClient;
+
+    @BeforeEach
+    void setUp() {
+        fdpClientMock = mock(FdpClientInterface.class);
+        resilientClient = new ResilientFdpClient(fdpClientMock,
+                new RetryPolicy(3, Duration.ZERO, Duration.ZERO),
+                new CircuitBreaker("localhost", 10, Duration.ZERO),
+                RetryBudget.defaults());
+    }
+
+    private static FdpClientException unavailable() {
+        return new FdpClientException("Failed to reach FDP", new FdpHttpStatusException(503, "[503] FDP unavailable"));
+    }
+
+    @Test
+    void ServiceUnavailable_WhenFetchingSchemas_RetriesAndReturnsResult() {
+        // Arrange
+        List<SchemaDataResponseDto> schemas = List.of();
+        when(fdpClientMock.fetchSchemas()).thenThrow(unavailable()).thenReturn(schemas);
+
+        // Act
+        List<SchemaDataResponseDto> result = resilientClient.fetchSchemas();
+
+        // Assert
+        assertSame(schemas, result);
+        verify(fdpClientMock, times(2)).fetchSchemas();
+        assertEquals(1, resilientClient.stats().retries());
+    }
+
+    @Test
+    void BadRequest_WhenFetchingSchemas_IsNotRetried() {
+        // Arrange
+        when(fdpClientMock.fetchSchemas()).thenThrow(new IllegalArgumentException("[400] bad request"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> resilientClient.fetchSchemas());
+        verify(fdpClientMock, times(1)).fetchSchemas();
+    }
+
+    @Test
+    void ConnectionRefused_WhenAllAttemptsFail_ThrowsLastFailure() {
+        // Arrange
+        FdpClientException refused = new FdpClientException("Failed to reach FDP", new ConnectException("Connection refused"));
+        when(fdpClientMock.getSettings()).thenThrow(refused);
+
+        // Act & Assert
+        FdpClientException thrown = assertThrows(FdpClientException.class, () -> resilientClient.getSettings());
+        assertSame(refused, thrown);
+        verify(fdpClientMock, times(3)).getSettings();
+    }
+
+    @Test
+    void InsertFailedButAppliedByFdp_WhenInsertingSchema_IsNotSentAgain() {
+        // Arrange
+        ShapeTask task = new ShapeTask("Dataset", new Version("1.0.0"), null, Set.of(), "model", ShapeStatus.INSERT);
+        UpdateSchemaRequestDto request = new UpdateSchemaRequestDto("Dataset", "Dataset", false, "model", Set.of(), "Dataset", "dataset");
+        when(fdpClientMock.insertSchema(task, request)).thenThrow(unavailable());
+        when(fdpClientMock.fetchSchemaSummaries(any())).thenReturn(List.of(new SchemaSummaryDto("uuid-1", "Dataset", "1.0.0", null)));
+
+        // Act
+        ResourceResponseDto result = resilientClient.insertSchema(task, request);
+
+        // Assert
+        assertEquals("uuid-1", result.uuid());
+        verify(fdpClientMock, times(1)).insertSchema(task, request);
+        assertEquals(1, resilientClient.stats().writesFoundApplied());
+    }
+
+    @Test
+    void InsertFailedAndNotApplied_WhenInsertingSchema_IsSentAgain() {
+        // Arrange
+        ShapeTask task = new ShapeTask("Dataset", new Version("1.0.0"), null, Set.of(), "model", ShapeStatus.INSERT);
+        UpdateSchemaRequestDto request = new UpdateSchemaRequestDto("Dataset", "Dataset", false, "model", Set.of(), "Dataset", "dataset");
+        ResourceResponseDto response = new ResourceResponseDto("uuid-2", "Dataset", null, null, null, null, null);
+        when(fdpClientMock.insertSchema(task, request)).thenThrow(unavailable()).thenReturn(response);
+        when(fdpClientMock.fetchSchemaSummaries(any())).thenReturn(List.of());
+
+        // Act
+        ResourceResponseDto result = resilientClient.insertSchema(task, request);
+
+        // Assert
+        assertSame(response, result);
+        verify(fdpClientMock, times(2)).insertSchema(task, request);
+    }
+
+    @Test
+    void RetryBudgetExhausted_WhenRequestFails_IsNotRetried() {
+        // Arrange
+        resilientClient = new ResilientFdpClient(fdpClientMock,
+                new RetryPolicy(3, Duration.ZERO, Duration.ZERO),
+                new CircuitBreaker("localhost", 10, Duration.ZERO),
+                new RetryBudget(0, 0));
+        when(fdpClientMock.fetchResources()).thenThrow(unavailable());
+
+        // Act & Assert
+        assertThrows(FdpClientException.class, () -> resilientClient.fetchResources());
+        verify(fdpClientMock, times(1)).fetchResources();
+    }
+
+    @Test
+    void ConsecutiveFailures_WhenThresholdReached_CircuitOpensAndAllowsOneTrialAfterwards() {
+        // Arrange
+        MutableClock clock = new MutableClock();
+        CircuitBreaker breaker = new CircuitBreaker("localhost", 2, Duration.ofSeconds(10), clock);
+
+        // Act
+        breaker.recordFailure();
+        boolean allowedAfterOneFailure = breaker.allowRequest();
+        breaker.recordFailure();
+        boolean allowedWhenOpen = breaker.allowRequest();
+        clock.now = clock.now.plusSeconds(10);
+        boolean trialAllowed = breaker.allowRequest();
+        boolean secondAllowedDuringTrial = breaker.allowRequest();
+        breaker.recordSuccess();
+
+        // Assert
+        assertTrue(allowedAfterOneFailure);
+        assertFalse(allowedWhenOpen);
+        assertTrue(trialAllowed);
+        assertFalse(secondAllowedDuringTrial);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(1, breaker.timesOpened());
+    }
+
+    private static class MutableClock extends Clock {
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package nl.healthri.fdp.uploadschema.integrations.session;
+
+import nl.healthri.fdp.uploadschema.dto.auth.LoginRequestDto;
+import nl.healthri.fdp.uploadschema.dto.auth.LoginResponseDto;
+import nl.healthri.fdp.uploadschema.dto.settings.SettingsResponseDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpUnauthorizedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionFdpClientTest {
+    private static final URI HOST = URI.create("http://localhost:8080");
+    private static final LoginRequestDto LOGIN = new LoginRequestDto("albert.einstein@example.com", "password");
+
+    private FdpClientInterface fdpClientMock;
+
+    @TempDir
+    Path tokenDir;
+
+    @BeforeEach
+    void setUp() {
+        fdpClientMock = mock(FdpClientInterface.class);
+    }
+
+    private static String jwt(Instant expiry) {
+        String claims = "{\"sub\":\"albert\",\"exp\":" + expiry.getEpochSecond() + "}";
+        return "e30." + Base64.getUrlEncoder().withoutPadding().encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    @Test
+    void ExpiredToken_WhenFdpAnswers401_LogsInAgainAndReplaysRequest() {
+        // Arrange
+        SessionFdpClient session = new SessionFdpClient(fdpClientMock, HOST);
+        SettingsResponseDto settings = mock(SettingsResponseDto.class);
+        LoginResponseDto first = new LoginResponseDto("first");
+        LoginResponseDto second = new LoginResponseDto("second");
+        when(fdpClientMock.getAuthToken(LOGIN)).thenReturn(first, second);
+        when(fdpClientMock.getSettings()).thenThrow(new FdpUnauthorizedException("[401]Unauthorized")).thenReturn(settings);
+        session.setAuthToken(session.getAuthToken(LOGIN));
+
+        // Act
+        SettingsResponseDto result = session.getSettings();
+
+        // Assert
+        assertSame(settings, result);
+        verify(fdpClientMock).setAuthToken(second);
+        verify(fdpClientMock, times(2)).getSettings();
+        assertEquals(1, session.refreshes());
+    }
+
+    @Test
+    void RejectedAgain_WhenReplayingRequest_ThrowsUnauthorized() {
+        // Arrange
+        SessionFdpClient session = new SessionFdpClient(fdpClientMock, HOST);
+        when(fdpClientMock.getAuthToken(LOGIN)).thenReturn(new LoginResponseDto("token"));
+        when(fdpClientMock.getSettings()).thenThrow(new FdpUnauthorizedException("[401]Unauthorized"));
+        session.setAuthToken(session.getAuthToken(LOGIN));
+
+        // Act & Assert
+        assertThrows(FdpUnauthorizedException.class, session::getSettings);
+        verify(fdpClientMock, times(2)).getSettings();
+    }
+
+    @Test
+    void StoredToken_WhenLoggingInNextRun_SkipsLoginRequest() {
+        // Arrange
+        LoginResponseDto token = new LoginResponseDto(jwt(Instant.now().plusSeconds(3600)));
+        when(fdpClientMock.getAuthToken(LOGIN)).thenReturn(token);
+        new SessionFdpClient(fdpClientMock, HOST, new TokenStore(tokenDir)).getAuthToken(LOGIN);
+
+        // Act
+        LoginResponseDto result = new SessionFdpClient(fdpClientMock, HOST, new TokenStore(tokenDir)).getAuthToken(LOGIN);
+
+        // Assert
+        assertEquals(token, result);
+        verify(fdpClientMock, times(1)).getAuthToken(LOGIN);
+    }
+
+    @Test
+    void ExpiredStoredToken_WhenLookingUp_IsNotReturned() throws Exception {
+        // Arrange
+        TokenStore store = new TokenStore(tokenDir);
+        store.store(HOST, LOGIN.email(), new LoginResponseDto(jwt(Instant.now().minusSeconds(10))));
+
+        // Act
+        Optional<LoginResponseDto> result = store.lookup(HOST, LOGIN.email());
+
+        // Assert
+        assertTrue(result.isEmpty());
+        try (var files = Files.list(tokenDir.resolve(TokenStore.SUBDIRECTORY))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void StoredToken_WhenWrittenToDisk_IsOnlyReadableByOwner() throws Exception {
+        // Arrange
+        TokenStore store = new TokenStore(tokenDir);
+
+        // Act
+        store.store(HOST, LOGIN.email(), new LoginResponseDto("token"));
+
+        // Assert
+        try (var files = Files.list(tokenDir.resolve(TokenStore.SUBDIRECTORY))) {
+            Path file = files.findFirst().orElseThrow();
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        }
+        assertEquals(Optional.of(new LoginResponseDto("token")), store.lookup(HOST, LOGIN.email()));
+    }
+
+    @Test
+    void ExistingDirectory_WhenCreatingStore_KeepsItsPermissionsAndRestrictsTokenDirectory() throws Exception {
+        // Arrange
+        Files.setPosixFilePermissions(tokenDir, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        // Act
+        new TokenStore(tokenDir);
+
+        // Assert
+        assertEquals("rwxr-xr-x", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenDir)));
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenDir.resolve(TokenStore.SUBDIRECTORY))));
+    }
+
+    @Test
+    void TokenDirectoryReadableByOthers_WhenCreatingStore_Fails() throws Exception {
+        // Arrange
+        Path tokens = Files.createDirectory(tokenDir.resolve(TokenStore.SUBDIRECTORY));
+        Files.setPosixFilePermissions(tokens, PosixFilePermissions.fromString("rwxr-x---"));
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, () -> new TokenStore(tokenDir));
+        assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokens)));
+    }
+}
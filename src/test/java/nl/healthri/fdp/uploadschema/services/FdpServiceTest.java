@@ -0,0 +1,280 @@
+package nl.healthri.fdp.uploadschema.services;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.domain.Version;
+import nl.healthri.fdp.uploadschema.domain.enums.ShapeStatus;
+import nl.healthri.fdp.uploadschema.dto.resource.ResourceResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaDataResponseDto;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import nl.healthri.fdp.uploadschema.dto.schema.UpdateSchemaRequestDto;
+import nl.healthri.fdp.uploadschema.integrations.FdpClientInterface;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.utils.CompressedText;
+import nl.healthri.fdp.uploadschema.utils.SchemaCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FdpServiceTest {
+
+    private FdpClientInterface fdpClientMock;
+    private FdpService fdpService;
+
+    @BeforeEach
+    void setUp() {
+        fdpClientMock = mock(FdpClientInterface.class);
+        fdpService = new FdpService(fdpClientMock);
+    }
+
+    private static SchemaDataResponseDto schema(String uuid, String name, String version, String definition) {
+        SchemaDataResponseDto.Latest latest = new SchemaDataResponseDto.Latest(uuid, version, null, null, name, true, false, true,
+                null, null, null, definition, null, new ArrayList<>(), new ArrayList<>(), null, null);
+        return new SchemaDataResponseDto(uuid, name, latest, null, new ArrayList<>(List.of(version)), new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Test
+    void SchemasWithoutDefinition_WhenLoadingDefinitions_FetchesOnlyRequestedSchemasByUuid() {
+        // Arrange
+        when(fdpClientMock.fetchSchemaSummaries(any())).thenReturn(List.of(
+                new SchemaSummaryDto("uuid-1", "Dataset", "1.0.0", null),
+                new SchemaSummaryDto("uuid-2", "Catalog", "1.0.0", null),
+                new SchemaSummaryDto("uuid-3", "Foreign", "3.0.0", null)));
+        when(fdpClientMock.fetchSchema("uuid-1")).thenReturn(schema("uuid-1", "Dataset", "1.0.0", "dataset shape"));
+        when(fdpClientMock.fetchSchema("uuid-2")).thenReturn(schema("uuid-2", "Catalog", "1.0.0", "catalog shape"));
+
+        // Act
+        fdpService.loadSchemaDefinitions(List.of("Dataset", "Catalog", "Not On FDP"));
+
+        // Assert
+        assertEquals("dataset shape", fdpService.getSchemaInfoMap().get("Dataset").definition());
+        assertEquals("catalog shape", fdpService.getSchemaInfoMap().get("Catalog").definition());
+        assertNull(fdpService.getSchemaInfoMap().get("Foreign").definition());
+        verify(fdpClientMock, never()).fetchSchema("uuid-3");
+        verify(fdpClientMock, times(1)).fetchSchemaSummaries(any());
+    }
+
+    @Test
+    void SchemaWithOnlyDraft_WhenLoadingDefinitions_IsSkipped() {
+        // Arrange
+        when(fdpClientMock.fetchSchemaSummaries(any())).thenReturn(List.of(
+                new SchemaSummaryDto("uuid-1", "Dataset", "1.0.0", null),
+                new SchemaSummaryDto("uuid-2", "Catalog", "1.0.0", null)));
+        when(fdpClientMock.fetchSchema("uuid-1")).thenReturn(schema("uuid-1", "Dataset", "1.0.0", "dataset shape"));
+        when(fdpClientMock.fetchSchema("uuid-2")).thenReturn(new SchemaDataResponseDto("uuid-2", "Catalog", null, new Object(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+
+        // Act
+        fdpService.loadSchemaDefinitions(List.of("Dataset", "Catalog"));
+
+        // Assert
+        assertEquals("dataset shape", fdpService.getSchemaInfoMap().get("Dataset").definition());
+        assertNull(fdpService.getSchemaInfoMap().get("Catalog").definition());
+    }
+
+    @Test
+    void FetchFails_WhenLoadingDefinitions_FailureIsRethrown() {
+        // Arrange
+        when(fdpClientMock.fetchSchemaSummaries(any())).thenReturn(List.of(new SchemaSummaryDto("uuid-1", "Dataset", "1.0.0", null)));
+        when(fdpClientMock.fetchSchema("uuid-1")).thenThrow(new FdpClientException("unavailable", null));
+
+        // Act & Assert
+        FdpClientException thrown = assertThrows(FdpClientException.class, () -> fdpService.loadSchemaDefinitions(List.of("Dataset")));
+        assertEquals("unavailable", thrown.getMessage());
+    }
+
+    @Test
+    void DefinitionKeptFromListing_WhenLoadingDefinitions_IsNotFetchedAgain() {
+        // Arrange
+        fdpService = new FdpService(fdpClientMock, "Dataset"::equals);
+        when(fdpClientMock.fetchSchemaSummaries(any())).thenReturn(List.of(
+                new SchemaSummaryDto("uuid-1", "Dataset", "1.0.0", CompressedText.of("dataset shape"))));
+
+        // Act
+        fdpService.loadSchemaDefinitions(List.of("Dataset"));
+
+        // Assert
+        assertEquals("dataset shape", fdpService.getSchemaInfoMap().get("Dataset").definition());
+        verify(fdpClientMock, never()).fetchSchema(anyString());
+    }
+
+    @Test
+    void SchemasWithParent_WhenCreatingAndUpdating_ParentLookupsAreCounted() {
+        // Arrange
+        when(fdpClientMock.fetchSchemaSummaries(any())).thenReturn(List.of(
+                new SchemaSummaryDto("resource-uuid", "Resource", "1.0.0", null),
+                new SchemaSummaryDto("catalog-uuid", "Catalog", "1.0.0", null)));
+        ShapeTask dataset = new ShapeTask("Dataset", new Version("1.0.0"), "", Set.of("Resource"), "model", ShapeStatus.INSERT);
+        ShapeTask catalog = new ShapeTask("Catalog", new Version("1.0.1"), "catalog-uuid", Set.of("Resource"), "model", ShapeStatus.UPDATE);
+        ShapeTask orphan = new ShapeTask("Sample", new Version("1.0.0"), "", Set.of("Missing"), "model", ShapeStatus.INSERT);
+        when(fdpClientMock.insertSchema(eq(dataset), any())).thenReturn(new ResourceResponseDto("dataset-uuid", "Dataset", null,
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+
+        // Act
+        fdpService.createSchema(dataset);
+        fdpService.updateSchema(catalog);
+        assertThrows(IllegalStateException.class, () -> fdpService.createSchema(orphan));
+
+        // Assert
+        ArgumentCaptor<UpdateSchemaRequestDto> update = ArgumentCaptor.forClass(UpdateSchemaRequestDto.class);
+        verify(fdpClientMock).updateSchema(eq(catalog), update.capture());
+        assertEquals(Set.of("resource-uuid"), update.getValue().extendsSchemaUuids());
+        assertEquals(new SchemaCatalog.Stats(2, 1, 1), fdpService.getSchemaCatalog().stats());
+    }
+
+    private static ResourceTask childLink(String childUuid, String childName) {
+        return new ResourceTask("Dataset", "dataset-uuid", null, childUuid, "http://example.com/" + childName, childName, true);
+    }
+
+    @Test
+    void SeveralChildrenOfOneParent_WhenUpdatingChildren_ParentIsReadAndWrittenOnce() {
+        // Arrange
+        ResourceResponseDto.Child existing = new ResourceResponseDto.Child("series-uuid", "http://example.com/Dataset Series", null);
+        ResourceResponseDto dataset = new ResourceResponseDto("dataset-uuid", "Dataset", "dataset", new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(List.of(existing)), new ArrayList<>());
+        when(fdpClientMock.fetchResources()).thenReturn(List.of(dataset));
+        List<ResourceTask> tasks = List.of(
+                childLink("series-uuid", "Dataset Series"),
+                childLink("sample-uuid", "Sample Distribution"),
+                childLink("analytics-uuid", "Analytics Distribution"));
+
+        // Act
+        fdpService.updateResourceChildren(tasks);
+
+        // Assert
+        ArgumentCaptor<ResourceResponseDto> update = ArgumentCaptor.forClass(ResourceResponseDto.class);
+        verify(fdpClientMock, times(1)).updateResource(eq(tasks.getFirst()), update.capture());
+        verify(fdpClientMock, never()).fetchResource(anyString());
+        assertEquals(List.of("series-uuid", "sample-uuid", "analytics-uuid"),
+                update.getValue().children().stream().map(ResourceResponseDto.Child::resourceDefinitionUuid).toList());
+        assertEquals(1, dataset.children().size());
+        assertSame(update.getValue(), fdpService.getResourceCatalog().getByUuid("dataset-uuid").orElseThrow());
+    }
+
+    @Test
+    void AllChildrenPresent_WhenUpdatingChildren_ParentIsNotWritten() {
+        // Arrange
+        ResourceResponseDto.ListView listView = new ResourceResponseDto.ListView("Sample Distributions", ResourceTask.DEFAULT_LIST_VIEW_TAGS_URI, new ArrayList<>());
+        ResourceResponseDto.Child existing = new ResourceResponseDto.Child("sample-uuid", "http://example.com/Sample Distribution", listView);
+        when(fdpClientMock.fetchResources()).thenReturn(List.of(new ResourceResponseDto("dataset-uuid", "Dataset", "dataset",
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(List.of(existing)), new ArrayList<>())));
+
+        // Act
+        fdpService.updateResourceChildren(List.of(childLink("sample-uuid", "Sample Distribution")));
+
+        // Assert
+        verify(fdpClientMock, never()).updateResource(any(), any());
+    }
+
+    @Test
+    void InsertedResource_WhenListingResourcesAgain_IsServedFromCatalog() {
+        // Arrange
+        ResourceTask task = new ResourceTask("Sample Distribution", "", "shape-uuid", false);
+        ResourceResponseDto inserted = new ResourceResponseDto("sample-uuid", "Sample Distribution", "sampledistribution",
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        when(fdpClientMock.fetchResources()).thenReturn(List.of());
+        when(fdpClientMock.insertResource(eq(task), any())).thenReturn(inserted);
+
+        // Act
+        fdpService.getAllResources();
+        fdpService.createResource(task);
+        List<ResourceResponseDto> resources = fdpService.getAllResources();
+
+        // Assert
+        assertEquals("sample-uuid", task.UUID);
+        assertEquals(List.of(inserted), resources);
+        assertEquals("sample-uuid", fdpService.getResourceCatalog().get("Sample Distribution").orElseThrow().uuid());
+        verify(fdpClientMock, times(1)).fetchResources();
+    }
+
+    @Test
+    void OutdatedChildLink_WhenUpdatingChildren_OnlyThatLinkIsReplaced() {
+        // Arrange
+        ResourceResponseDto.ListView listView = new ResourceResponseDto.ListView("Dataset Series", ResourceTask.DEFAULT_LIST_VIEW_TAGS_URI, new ArrayList<>());
+        ResourceResponseDto.Child upToDate = new ResourceResponseDto.Child("series-uuid", "http://example.com/Dataset Series", listView);
+        ResourceResponseDto.Child outdated = new ResourceResponseDto.Child("sample-uuid", "http://example.com/old", null);
+        ResourceResponseDto.Child foreign = new ResourceResponseDto.Child("other-uuid", "http://example.com/other", null);
+        when(fdpClientMock.fetchResources()).thenReturn(List.of(new ResourceResponseDto("dataset-uuid", "Dataset", "dataset",
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(List.of(upToDate, outdated, foreign)), new ArrayList<>())));
+        ResourceTask sample = childLink("sample-uuid", "Sample Distribution");
+        sample.childListViewTitle = "Samples";
+
+        // Act
+        boolean updated = fdpService.updateResourceChildren(List.of(childLink("series-uuid", "Dataset Series"), sample));
+
+        // Assert
+        ArgumentCaptor<ResourceResponseDto> update = ArgumentCaptor.forClass(ResourceResponseDto.class);
+        verify(fdpClientMock).updateResource(any(), update.capture());
+        List<ResourceResponseDto.Child> children = update.getValue().children();
+        assertTrue(updated);
+        assertEquals(List.of(upToDate.resourceDefinitionUuid(), "sample-uuid", foreign.resourceDefinitionUuid()),
+                children.stream().map(ResourceResponseDto.Child::resourceDefinitionUuid).toList());
+        assertEquals("http://example.com/Sample Distribution", children.get(1).relationUri());
+        assertNull(children.get(1).listView());
+    }
+
+    @Test
+    void ExistingLinkWithOtherListView_WhenUpdatingChildren_ListViewIsLeftAlone() {
+        // Arrange
+        ResourceResponseDto.ListView listView = new ResourceResponseDto.ListView("Samples curated on the FDP", "http://example.com/tags", new ArrayList<>());
+        ResourceResponseDto.Child existing = new ResourceResponseDto.Child("sample-uuid", "http://example.com/Sample Distribution", listView);
+        when(fdpClientMock.fetchResources()).thenReturn(List.of(new ResourceResponseDto("dataset-uuid", "Dataset", "dataset",
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(List.of(existing)), new ArrayList<>())));
+
+        // Act
+        boolean updated = fdpService.updateResourceChildren(List.of(childLink("sample-uuid", "Sample Distribution")));
+
+        // Assert
+        assertFalse(updated);
+        verify(fdpClientMock, never()).updateResource(any(), any());
+    }
+
+    @Test
+    void ResourceWithOtherUrlPrefix_WhenUpdatingFields_PrefixIsLeftAlone() {
+        // Arrange
+        when(fdpClientMock.fetchResources()).thenReturn(List.of(new ResourceResponseDto("series-uuid", "Dataset Series", "series",
+                new ArrayList<>(List.of("old-schema")), new ArrayList<>(), new ArrayList<>(), new ArrayList<>())));
+        ResourceTask sameSchema = new ResourceTask("Dataset Series", "series-uuid", "old-schema", true);
+        ResourceTask otherSchema = new ResourceTask("Dataset Series", "series-uuid", "new-schema", true);
+
+        // Act
+        boolean first = fdpService.updateResourceFields(sameSchema);
+        boolean second = fdpService.updateResourceFields(otherSchema);
+
+        // Assert
+        assertFalse(first);
+        assertTrue(second);
+        ArgumentCaptor<ResourceResponseDto> update = ArgumentCaptor.forClass(ResourceResponseDto.class);
+        verify(fdpClientMock, times(1)).updateResource(eq(otherSchema), update.capture());
+        assertEquals("series", update.getValue().urlPrefix());
+    }
+
+    @Test
+    void ResourceWithOtherSchema_WhenUpdatingFields_IsWrittenOnlyWhenDifferent() {
+        // Arrange
+        when(fdpClientMock.fetchResources()).thenReturn(List.of(new ResourceResponseDto("series-uuid", "Dataset Series", "datasetseries",
+                new ArrayList<>(List.of("old-schema")), new ArrayList<>(), new ArrayList<>(), new ArrayList<>())));
+        ResourceTask task = new ResourceTask("Dataset Series", "series-uuid", "new-schema", true);
+
+        // Act
+        boolean first = fdpService.updateResourceFields(task);
+        boolean second = fdpService.updateResourceFields(task);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        ArgumentCaptor<ResourceResponseDto> update = ArgumentCaptor.forClass(ResourceResponseDto.class);
+        verify(fdpClientMock, times(1)).updateResource(eq(task), update.capture());
+        assertEquals(List.of("new-schema"), update.getValue().metadataSchemaUuids());
+    }
+}
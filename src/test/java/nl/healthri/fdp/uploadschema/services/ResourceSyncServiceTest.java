@@ -0,0 +1,124 @@
+package nl.healthri.fdp.uploadschema.services;
+
+import nl.healthri.fdp.uploadschema.domain.ResourceTask;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ResourceSyncServiceTest {
+
+    private FdpServiceInterface fdpServiceMock;
+    private ResourceTaskServiceInterface resourceTaskServiceMock;
+    private ResourceSyncService resourceSyncService;
+
+    @BeforeEach
+    void setUp() {
+        fdpServiceMock = mock(FdpServiceInterface.class);
+        resourceTaskServiceMock = mock(ResourceTaskServiceInterface.class);
+        resourceSyncService = new ResourceSyncService(fdpServiceMock, resourceTaskServiceMock, 4);
+    }
+
+    private static ResourceTask childLink(String childUuid, String childName) {
+        return new ResourceTask("Dataset", "dataset-uuid", null, childUuid, "http://example.com/" + childName, childName, true);
+    }
+
+    @Test
+    void ConvergedFdp_WhenSyncing_WritesNothing() {
+        // Arrange
+        ResourceTask series = new ResourceTask("Dataset Series", "series-uuid", "schema-uuid", true);
+        ResourceTask sample = new ResourceTask("Sample Distribution", "sample-uuid", "schema-uuid", true);
+        when(resourceTaskServiceMock.createTasks()).thenReturn(List.of(series, sample));
+        when(resourceTaskServiceMock.createParentTasks()).thenReturn(List.of(
+                childLink("series-uuid", "Dataset Series"), childLink("sample-uuid", "Sample Distribution")));
+
+        // Act
+        ResourceSyncService.SyncResult result = resourceSyncService.sync();
+
+        // Assert
+        assertEquals(0, result.writes());
+        assertEquals(List.of("Dataset", "Dataset Series", "Sample Distribution"), result.unchanged());
+        verify(fdpServiceMock, never()).createResource(any());
+        verify(fdpServiceMock, times(1)).updateResourceChildren(any());
+    }
+
+    @Test
+    void NewAndOutdatedResources_WhenSyncing_InsertsBeforeLinkingChildren() {
+        // Arrange
+        ResourceTask series = new ResourceTask("Dataset Series", "", "schema-uuid", false);
+        ResourceTask sample = new ResourceTask("Sample Distribution", "sample-uuid", "schema-uuid", true);
+        List<ResourceTask> parentTasks = List.of(childLink("series-uuid", "Dataset Series"), childLink("sample-uuid", "Sample Distribution"));
+        when(resourceTaskServiceMock.createTasks()).thenReturn(List.of(series, sample));
+        when(resourceTaskServiceMock.createParentTasks()).thenReturn(parentTasks);
+        when(fdpServiceMock.updateResourceFields(sample)).thenReturn(true);
+        when(fdpServiceMock.updateResourceChildren(parentTasks)).thenReturn(true);
+
+        // Act
+        ResourceSyncService.SyncResult result = resourceSyncService.sync();
+
+        // Assert
+        InOrder inOrder = inOrder(fdpServiceMock, resourceTaskServiceMock);
+        inOrder.verify(fdpServiceMock).createResource(series);
+        inOrder.verify(resourceTaskServiceMock).createParentTasks();
+        inOrder.verify(fdpServiceMock).updateResourceChildren(parentTasks);
+        verify(fdpServiceMock, never()).updateResourceFields(series);
+        assertEquals(List.of("Dataset Series"), result.inserted());
+        assertEquals(List.of("Dataset", "Sample Distribution"), result.updated());
+        assertEquals(3, result.writes());
+    }
+
+    @Test
+    void FailingInserts_WhenSyncing_AreReportedTogetherAndChildrenAreNotLinked() {
+        // Arrange
+        ResourceTask series = new ResourceTask("Dataset Series", "", "schema-uuid", false);
+        ResourceTask sample = new ResourceTask("Sample Distribution", "", "schema-uuid", false);
+        ResourceTask analytics = new ResourceTask("Analytics Distribution", "", "schema-uuid", false);
+        when(resourceTaskServiceMock.createTasks()).thenReturn(List.of(series, sample, analytics));
+        doThrow(new FdpClientException("unavailable", null)).when(fdpServiceMock).createResource(series);
+        doThrow(new FdpClientException("unavailable", null)).when(fdpServiceMock).createResource(analytics);
+
+        // Act
+        FdpClientException thrown = assertThrows(FdpClientException.class, () -> resourceSyncService.sync());
+
+        // Assert
+        assertTrue(thrown.getMessage().contains("[Analytics Distribution, Dataset Series]"));
+        verify(fdpServiceMock).createResource(sample);
+        verify(resourceTaskServiceMock, never()).createParentTasks();
+    }
+
+    @Test
+    void ManyInserts_WhenSyncing_RunConcurrently() throws Exception {
+        // Arrange
+        List<ResourceTask> tasks = List.of(
+                new ResourceTask("A", "", "schema-uuid", false),
+                new ResourceTask("B", "", "schema-uuid", false),
+                new ResourceTask("C", "", "schema-uuid", false),
+                new ResourceTask("D", "", "schema-uuid", false));
+        when(resourceTaskServiceMock.createTasks()).thenReturn(tasks);
+        when(resourceTaskServiceMock.createParentTasks()).thenReturn(List.of());
+        CountDownLatch allStarted = new CountDownLatch(tasks.size());
+        doAnswer(invocation -> {
+            allStarted.countDown();
+            // only returns when all four inserts are in flight at the same time
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            ResourceTask task = invocation.getArgument(0);
+            task.UUID = task.resource + "-uuid";
+            return null;
+        }).when(fdpServiceMock).createResource(any());
+
+        // Act
+        ResourceSyncService.SyncResult result = resourceSyncService.sync();
+
+        // Assert
+        assertEquals(List.of("A", "B", "C", "D"), result.inserted());
+        assertEquals(List.of("A-uuid", "B-uuid", "C-uuid", "D-uuid"), tasks.stream().map(t -> t.UUID).toList());
+    }
+}
@@ -248,7 +248,7 @@ class ResourceTaskServiceTest {
         List<SchemaDataResponseDto> fdpSchemaDataResponseList =  getSchemaDataResponseList("resource-not-in-fdp-1", "resource-not-in-fdp-2", "resource-not-in-fdp-3");
         Map<String, SchemaInfo> fdpSchemaInfoMap = createSchemaInfoMap(fdpSchemaDataResponseList);
 
-        when(fdpServiceMock.getAllSchemas()).thenReturn(fdpSchemaDataResponseList);
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(createSchemaInfoMap(fdpSchemaDataResponseList));
 
         // Act & Assert
         this.resourceTaskService.properties.resources.forEach((key, value) -> {
@@ -266,7 +266,7 @@ class ResourceTaskServiceTest {
         List<SchemaDataResponseDto> fdpSchemaDataResponseList = getSchemaDataResponseList("Distribution", "Dataset Series", "Distribution");
         Map<String, SchemaInfo> fdpSchemaInfoMap = createSchemaInfoMap(fdpSchemaDataResponseList);
 
-        when(fdpServiceMock.getAllSchemas()).thenReturn(fdpSchemaDataResponseList);
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(createSchemaInfoMap(fdpSchemaDataResponseList));
 
         // Act & Assert
         this.resourceTaskService.properties.resources.forEach((propertyResourceName, value) -> {
@@ -344,7 +344,7 @@ class ResourceTaskServiceTest {
 
         List<SchemaDataResponseDto> fdpSchemaDataResponseList = getSchemaDataResponseList("Distribution", "Dataset Series", "Distribution");
         Map<String, SchemaInfo> schemaInfoMap = createSchemaInfoMap(fdpSchemaDataResponseList);
-        when(fdpServiceMock.getAllSchemas()).thenReturn(fdpSchemaDataResponseList);
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(createSchemaInfoMap(fdpSchemaDataResponseList));
 
         // Act
         List<ResourceTask> result = resourceTaskService.createTasks();
@@ -371,7 +371,7 @@ class ResourceTaskServiceTest {
         when(fdpServiceMock.getAllResources()).thenReturn(fdpResourceResponseList);
 
         List<SchemaDataResponseDto> fdpSchemaDataResponseList = getSchemaDataResponseList("Distribution", "Dataset Series", "Distribution");
-        when(fdpServiceMock.getAllSchemas()).thenReturn(fdpSchemaDataResponseList);
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(createSchemaInfoMap(fdpSchemaDataResponseList));
 
         // Act
         List<ResourceTask> result = resourceTaskService.createTasks();
@@ -0,0 +1,112 @@
+package nl.healthri.fdp.uploadschema.services;
+
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.domain.Version;
+import nl.healthri.fdp.uploadschema.domain.enums.ShapeStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaPublishSchedulerTest {
+
+    private ShapeTask task(String shape, String... parents) {
+        return new ShapeTask(shape, new Version("1.0.0"), "", Set.of(parents), "", ShapeStatus.INSERT);
+    }
+
+    private List<ShapeTask> defaultTasks() {
+        return List.of(
+                task("Resource"),
+                task("Catalog", "Resource"),
+                task("Dataset", "Resource"),
+                task("Dataset Series"),
+                task("Distribution"),
+                task("Data Service", "Resource")
+        );
+    }
+
+    @Test
+    void TasksWithParents_WhenCreatingLevels_ReturnsParentsInEarlierLevel() {
+        // Act
+        List<List<ShapeTask>> levels = SchemaPublishScheduler.levels(defaultTasks());
+
+        // Assert
+        assertEquals(2, levels.size());
+        assertEquals(List.of("Resource", "Dataset Series", "Distribution"), levels.get(0).stream().map(t -> t.shape).toList());
+        assertEquals(List.of("Catalog", "Dataset", "Data Service"), levels.get(1).stream().map(t -> t.shape).toList());
+    }
+
+    @Test
+    void CyclicParents_WhenCreatingLevels_ThrowsIllegalArgumentException() {
+        // Arrange
+        List<ShapeTask> tasks = List.of(task("A", "B"), task("B", "A"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> SchemaPublishScheduler.levels(tasks));
+    }
+
+    @Test
+    void TasksWithParents_WhenPublishing_ParentsArePublishedBeforeChildren() {
+        // Arrange
+        SchemaPublishScheduler scheduler = new SchemaPublishScheduler(4);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        SchemaPublishScheduler.PublishResult result = scheduler.publish(defaultTasks(), t -> order.add(t.shape));
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals(6, result.published().size());
+        for (String child : List.of("Catalog", "Dataset", "Data Service")) {
+            assertTrue(order.indexOf("Resource") < order.indexOf(child));
+        }
+    }
+
+    @Test
+    void IndependentTasks_WhenPublishing_RunConcurrently() {
+        // Arrange
+        SchemaPublishScheduler scheduler = new SchemaPublishScheduler(3);
+        CountDownLatch allStarted = new CountDownLatch(3);
+        List<ShapeTask> tasks = List.of(task("Resource"), task("Dataset Series"), task("Distribution"));
+
+        // Act, every task waits until all three are running, which only succeeds when they run in parallel.
+        SchemaPublishScheduler.PublishResult result = scheduler.publish(tasks, t -> {
+            allStarted.countDown();
+            try {
+                if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("tasks didn't run concurrently");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Assert
+        assertTrue(result.isSuccess());
+    }
+
+    @Test
+    void FailingParent_WhenPublishing_ChildrenAreSkippedAndOthersArePublished() {
+        // Arrange
+        SchemaPublishScheduler scheduler = new SchemaPublishScheduler(2);
+        Set<String> executed = ConcurrentHashMap.newKeySet();
+
+        // Act
+        SchemaPublishScheduler.PublishResult result = scheduler.publish(defaultTasks(), t -> {
+            if (t.shape.equals("Resource")) {
+                throw new IllegalStateException("FDP is down");
+            }
+            executed.add(t.shape);
+        });
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals(Set.of("Resource"), result.failed().keySet());
+        assertEquals(List.of("Catalog", "Dataset", "Data Service"), result.skipped());
+        assertEquals(Set.of("Dataset Series", "Distribution"), executed);
+    }
+}
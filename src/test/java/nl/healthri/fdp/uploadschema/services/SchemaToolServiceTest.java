@@ -0,0 +1,87 @@
+package nl.healthri.fdp.uploadschema.services;
+
+import nl.healthri.fdp.uploadschema.config.fdp.Properties;
+import nl.healthri.fdp.uploadschema.domain.ShapeTask;
+import nl.healthri.fdp.uploadschema.domain.Version;
+import nl.healthri.fdp.uploadschema.domain.enums.ShapeStatus;
+import nl.healthri.fdp.uploadschema.integrations.exceptions.FdpClientException;
+import nl.healthri.fdp.uploadschema.utils.FileHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SchemaToolServiceTest {
+
+    private FdpServiceInterface fdpServiceMock;
+    private ShapeTaskServiceInterface shapeTaskServiceMock;
+    private SchemaToolService schemaToolService;
+
+    private final ShapeTask resource = new ShapeTask("Resource", new Version("2.0.0"), "uuid-1", Set.of(), "", ShapeStatus.UPDATE);
+    private final ShapeTask dataset = new ShapeTask("Dataset", new Version("2.0.0"), "", Set.of("Resource"), "", ShapeStatus.INSERT);
+    private final ShapeTask catalog = new ShapeTask("Catalog", new Version("2.0.0"), "uuid-3", Set.of("Resource"), "", ShapeStatus.SAME);
+
+    @BeforeEach
+    void setUp() {
+        fdpServiceMock = mock(FdpServiceInterface.class);
+        shapeTaskServiceMock = mock(ShapeTaskServiceInterface.class);
+        schemaToolService = new SchemaToolService(fdpServiceMock, mock(ResourceTaskServiceInterface.class), shapeTaskServiceMock,
+                new Properties(), mock(FileHandler.class), new SchemaPublishScheduler(1), true);
+        when(shapeTaskServiceMock.createTasks()).thenReturn(List.of(resource, dataset, catalog));
+    }
+
+    @Test
+    void TwoPhase_WhenPublishing_ReleasesOnlyAfterAllDraftsArePrepared() throws Exception {
+        // Act
+        schemaToolService.createOrUpdateSchemas(false);
+
+        // Assert
+        InOrder inOrder = inOrder(fdpServiceMock);
+        inOrder.verify(fdpServiceMock).updateSchema(resource);
+        inOrder.verify(fdpServiceMock).createSchema(dataset);
+        inOrder.verify(fdpServiceMock).releaseSchema(resource);
+        InOrder datasetOrder = inOrder(fdpServiceMock);
+        datasetOrder.verify(fdpServiceMock).createSchema(dataset);
+        datasetOrder.verify(fdpServiceMock).releaseSchema(dataset);
+        verify(fdpServiceMock, never()).updateSchema(catalog);
+        verify(fdpServiceMock, never()).releaseSchema(catalog);
+    }
+
+    @Test
+    void TwoPhaseWithFailingDraft_WhenPublishing_ReleasesNothing() {
+        // Arrange
+        doThrow(new FdpClientException("unavailable", null)).when(fdpServiceMock).createSchema(dataset);
+
+        // Act & Assert
+        assertThrows(FdpClientException.class, () -> schemaToolService.createOrUpdateSchemas(false));
+        verify(fdpServiceMock).updateSchema(resource);
+        verify(fdpServiceMock, never()).releaseSchema(any());
+    }
+
+    @Test
+    void TwoPhase_WhenReleasing_ChildDoesNotWaitForItsParent() throws Exception {
+        // Arrange
+        CountDownLatch bothReleasing = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothReleasing.countDown();
+            // only returns when the releases of Resource and its child Dataset are in flight at the same time
+            assertTrue(bothReleasing.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(fdpServiceMock).releaseSchema(any());
+
+        // Act
+        schemaToolService.createOrUpdateSchemas(false);
+
+        // Assert
+        verify(fdpServiceMock).releaseSchema(resource);
+        verify(fdpServiceMock).releaseSchema(dataset);
+    }
+}
@@ -74,7 +74,7 @@ class ShapeTaskServiceTest {
         when(propertiesMock.getSchemasToPublish()).thenReturn(List.of(schemaTitle));
         when(propertiesMock.getVersion()).thenReturn(version);
         when(propertiesMock.getParents(schemaTitle)).thenReturn(Set.of());
-        when(fdpServiceMock.getAllSchemas()).thenReturn(Collections.emptyList());
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(Collections.emptyMap());
 
         Model model = new LinkedHashModel();
         when(fileHandlerMock.readFiles(uris)).thenReturn(model);
@@ -83,6 +83,7 @@ class ShapeTaskServiceTest {
         List<ShapeTask> tasks = shapeTaskService.createTasks();
 
         // Assert
+        verify(fileHandlerMock).prefetch(uris);
         assertEquals(1, tasks.size());
         ShapeTask task = tasks.getFirst();
         assertEquals(schemaTitle, task.shape);
@@ -128,7 +129,7 @@ class ShapeTaskServiceTest {
         when(propertiesMock.getSchemasToPublish()).thenReturn(List.of(schemaTitle));
         when(propertiesMock.getVersion()).thenReturn(version);
         when(propertiesMock.getParents(schemaTitle)).thenReturn(Set.of());
-        when(fdpServiceMock.getAllSchemas()).thenReturn(List.of(fdpSchemaDataResponse));
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(SchemaInfo.createSchemaInfoMap(List.of(fdpSchemaDataResponse)));
         when(fileHandlerMock.readFiles(List.of(uri))).thenReturn(model);
 
         // Act
@@ -150,7 +151,7 @@ class ShapeTaskServiceTest {
         when(propertiesMock.getSchemasToPublish()).thenReturn(List.of(schemaTitle));
         when(propertiesMock.getVersion()).thenReturn(version);
         when(propertiesMock.getParents(schemaTitle)).thenReturn(Set.of());
-        when(fdpServiceMock.getAllSchemas()).thenReturn(Collections.emptyList());
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(Collections.emptyMap());
 
         Model model = newModel();
         when(fileHandlerMock.readFiles(List.of(uri))).thenReturn(model);
@@ -209,7 +210,7 @@ class ShapeTaskServiceTest {
         when(propertiesMock.getSchemasToPublish()).thenReturn(List.of(schemaTitle));
         when(propertiesMock.getVersion()).thenReturn(version);
         when(propertiesMock.getParents(schemaTitle)).thenReturn(Set.of());
-        when(fdpServiceMock.getAllSchemas()).thenReturn(List.of(existingResponse));
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(SchemaInfo.createSchemaInfoMap(List.of(existingResponse)));
         when(fileHandlerMock.readFiles(uris)).thenReturn(model);
 
         // Act
@@ -265,7 +266,7 @@ class ShapeTaskServiceTest {
         when(propertiesMock.getSchemasToPublish()).thenReturn(List.of(schemaTitle));
         when(propertiesMock.getVersion()).thenReturn(version);
         when(propertiesMock.getParents(schemaTitle)).thenReturn(Set.of());
-        when(fdpServiceMock.getAllSchemas()).thenReturn(List.of(existingResponse));
+        when(fdpServiceMock.getSchemaInfoMap()).thenReturn(SchemaInfo.createSchemaInfoMap(List.of(existingResponse)));
         when(fileHandlerMock.readFiles(uris)).thenReturn(model);
 
         // Act
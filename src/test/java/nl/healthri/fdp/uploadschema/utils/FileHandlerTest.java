@@ -0,0 +1,269 @@
+package nl.healthri.fdp.uploadschema.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import nl.healthri.fdp.uploadschema.integrations.HttpTransport;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.SHACL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileHandlerTest {
+
+    private static final String AGENT = """
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            @prefix foaf: <http://xmlns.com/foaf/0.1/> .
+            <http://example.com/AgentShape> a sh:NodeShape ; sh:targetClass foaf:Agent .
+            """;
+    private static final String KIND = """
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            <http://example.com/KindShape> a sh:NodeShape .
+            """;
+    private static final String LABEL = """
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            <http://example.com/PeriodShape> sh:name "Période de validité — 期間" .
+            """;
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private URI agent;
+    private URI kind;
+    private URI label;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    // when set, a response is only sent once this many requests are in flight at the same time.
+    private volatile CountDownLatch inFlight;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            if (inFlight != null) {
+                inFlight.countDown();
+                awaitQuietly(inFlight);
+            }
+            String path = exchange.getRequestURI().getPath();
+            String content = path.endsWith("Agent.ttl") ? AGENT : path.endsWith("Label.ttl") ? LABEL : KIND;
+            String etag = "\"" + content.hashCode() + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] body = content.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", etag);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        String host = "http://localhost:" + server.getAddress().getPort();
+        agent = URI.create(host + "/shapes/Agent.ttl");
+        kind = URI.create(host + "/shapes/Kind.ttl");
+        label = URI.create(host + "/shapes/Label.ttl");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void ReferencedFiles_WhenPrefetching_AreDownloadedConcurrentlyAndOnce() {
+        // Arrange
+        inFlight = new CountDownLatch(2);
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            FileHandler fileHandler = new FileHandler(transport);
+
+            // Act
+            fileHandler.prefetch(List.of(agent, kind, agent, kind));
+            Model model = fileHandler.readFiles(List.of(agent, kind));
+
+            // Assert
+            assertEquals(0, inFlight.getCount());
+            assertEquals(3, model.size());
+            assertEquals(2, fullResponses.get());
+            assertEquals(new FileHandler.Stats(2, 2, 2), fileHandler.stats());
+        }
+    }
+
+    @Test
+    void SharedPieces_WhenReadingSeveralSchemas_EachFileIsDownloadedAndParsedOnce() {
+        // Arrange
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            FileHandler fileHandler = new FileHandler(transport);
+
+            // Act
+            Model first = fileHandler.readFiles(List.of(agent, kind));
+            Model second = fileHandler.readFiles(List.of(kind, agent));
+
+            // Assert
+            assertEquals(3, first.size());
+            assertEquals(first, second);
+            assertEquals(2, fullResponses.get());
+            assertEquals(new FileHandler.Stats(2, 2, 2), fileHandler.stats());
+        }
+    }
+
+    @Test
+    void SharedPiece_WhenSchemaModelIsChanged_ThrowsAndOtherSchemasAreNotAffected() {
+        // Arrange
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            FileHandler fileHandler = new FileHandler(transport);
+            Model dataset = fileHandler.readFiles(List.of(agent, kind));
+
+            // Act & Assert
+            assertThrows(UnsupportedOperationException.class, dataset::clear);
+            assertThrows(UnsupportedOperationException.class, () -> dataset.setNamespace("ex", "http://example.com/"));
+            Model catalog = fileHandler.readFiles(List.of(agent));
+            assertEquals(2, catalog.size());
+            assertTrue(catalog.getNamespace("foaf").isPresent());
+            assertTrue(catalog.getNamespace("ex").isEmpty());
+        }
+    }
+
+    @Test
+    void SharedPieces_WhenReadingSchemas_StatementsAreNotCopied() {
+        // Arrange
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            FileHandler fileHandler = new FileHandler(transport);
+
+            // Act
+            Model single = fileHandler.readFiles(List.of(agent));
+            Model union = fileHandler.readFiles(List.of(agent, kind, agent));
+
+            // Assert
+            assertSame(single, fileHandler.readFiles(List.of(agent)));
+            assertEquals(3, union.size());
+            assertEquals(3, union.stream().distinct().count());
+            assertEquals(union, fileHandler.readFiles(List.of(kind, agent)));
+            assertEquals(2, union.filter(null, RDF.TYPE, SHACL.NODE_SHAPE).size());
+            assertEquals(Set.of("sh", "foaf"), union.getNamespaces().stream().map(Namespace::getPrefix).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void NonAsciiLiterals_WhenStreamingRemoteFile_AreDecodedAsUtf8() {
+        // Arrange
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            FileHandler fileHandler = new FileHandler(transport);
+
+            // Act
+            Model model = fileHandler.readFiles(List.of(label));
+
+            // Assert
+            assertEquals("Période de validité — 期間", model.objects().iterator().next().stringValue());
+        }
+    }
+
+    @Test
+    void CachedFiles_WhenReadingInNextRun_AreRevalidatedWithoutDownloading() {
+        // Arrange
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            new FileHandler(transport, new RemoteFileCache(cacheDir, false)).readFiles(List.of(agent, kind));
+            RemoteFileCache fileCache = new RemoteFileCache(cacheDir, false);
+
+            // Act
+            Model model = new FileHandler(transport, fileCache).readFiles(List.of(agent, kind));
+
+            // Assert
+            assertEquals(3, model.size());
+            assertEquals(2, fullResponses.get());
+            assertEquals(2, notModified.get());
+            assertEquals(new RemoteFileCache.Stats(2, 0, 0, 0), fileCache.stats());
+        }
+    }
+
+    @Test
+    void Offline_WhenReading_ServesCachedFilesWithoutRequests() throws IOException {
+        // Arrange
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            new FileHandler(transport, new RemoteFileCache(cacheDir, false)).readFiles(List.of(agent));
+            server.stop(0);
+            RemoteFileCache fileCache = new RemoteFileCache(cacheDir, true);
+            FileHandler fileHandler = new FileHandler(transport, fileCache);
+
+            // Act
+            Model model = fileHandler.readFiles(List.of(agent));
+
+            // Assert
+            assertEquals(2, model.size());
+            assertEquals(new FileHandler.Stats(0, 1, 0), fileHandler.stats());
+            assertThrows(RuntimeException.class, () -> fileHandler.readFiles(List.of(kind)));
+        }
+        try (var objects = Files.list(cacheDir.resolve("objects"))) {
+            assertEquals(List.of(RemoteFileCache.sha256(AGENT.getBytes(StandardCharsets.UTF_8))),
+                    objects.map(p -> p.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    void UnreachableHost_WhenFileIsCached_ServesLastDownloadedVersion() {
+        // Arrange
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            new FileHandler(transport, new RemoteFileCache(cacheDir, false)).readFiles(List.of(agent));
+            server.stop(0);
+            RemoteFileCache fileCache = new RemoteFileCache(cacheDir, false);
+
+            // Act
+            Model model = new FileHandler(transport, fileCache).readFiles(List.of(agent));
+
+            // Assert
+            assertEquals(2, model.size());
+            assertEquals(1, fileCache.stats().stale());
+        }
+    }
+
+    @Test
+    void LargeLocalFile_WhenReading_IsMemoryMappedAndThroughputIsReported() throws IOException {
+        // Arrange
+        Path small = Files.writeString(cacheDir.resolve("Kind.ttl"), KIND);
+        Path large = Files.writeString(cacheDir.resolve("Label.ttl"), LABEL, StandardCharsets.UTF_8);
+        try (HttpTransport transport = HttpTransport.defaults()) {
+            FileHandler fileHandler = new FileHandler(transport, null, LABEL.length());
+
+            // Act
+            Model model = fileHandler.readFiles(List.of(small.toUri(), large.toUri()));
+
+            // Assert
+            FileHandler.Throughput throughput = fileHandler.throughput();
+            assertEquals(2, model.size());
+            assertTrue(model.objects().stream().anyMatch(o -> o.stringValue().equals("Période de validité — 期間")));
+            assertEquals(1, throughput.mapped());
+            assertEquals(Files.size(small) + Files.size(large), throughput.bytes());
+            assertEquals(2, throughput.statements());
+            assertTrue(throughput.statementsPerSecond() > 0);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package nl.healthri.fdp.uploadschema.utils;
+
+import nl.healthri.fdp.uploadschema.domain.Version;
+import nl.healthri.fdp.uploadschema.dto.schema.SchemaSummaryDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaCatalogTest {
+
+    private SchemaSummaryDto schema(String uuid, String name) {
+        return new SchemaSummaryDto(uuid, name, "1.0.0", CompressedText.of("definition"));
+    }
+
+    @Test
+    void SeveralLookups_WhenUsingCatalog_ListingIsFetchedOnce() {
+        // Arrange
+        AtomicInteger requests = new AtomicInteger();
+        SchemaCatalog catalog = new SchemaCatalog(() -> {
+            requests.incrementAndGet();
+            return List.of(schema("1", "Resource"), schema("2", "Dataset"));
+        });
+
+        // Act
+        catalog.asMap();
+        catalog.get("Resource");
+        catalog.get("Dataset");
+        catalog.put("Catalog", new SchemaInfo(new Version("2.0.0"), "new-uuid", "model"));
+        catalog.get("Distribution");
+
+        // Assert
+        assertEquals(1, requests.get());
+        assertEquals(new SchemaCatalog.Stats(2, 1, 1), catalog.stats());
+    }
+
+    @Test
+    void InsertedSchema_WhenPutInCatalog_IsResolvedWithoutNewListing() {
+        // Arrange
+        AtomicInteger requests = new AtomicInteger();
+        SchemaCatalog catalog = new SchemaCatalog(() -> {
+            requests.incrementAndGet();
+            return List.of(schema("1", "Resource"));
+        });
+
+        // Act
+        catalog.put("Catalog", new SchemaInfo(new Version("2.0.0"), "new-uuid", "model"));
+
+        // Assert
+        assertEquals("new-uuid", catalog.get("Catalog").orElseThrow().uuid());
+        assertEquals("1", catalog.asMap().get("Resource").uuid());
+        assertEquals(1, requests.get());
+    }
+}